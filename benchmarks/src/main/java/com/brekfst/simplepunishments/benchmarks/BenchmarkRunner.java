@@ -0,0 +1,37 @@
+package com.brekfst.simplepunishments.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+// java -jar benchmarks.jar [include regex]
+//   -Dthreads=1,4,16   thread counts to run every benchmark with
+//   -Dresults=results  directory for the JSON reports, one per thread count, for comparing releases
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : ".*Benchmark.*";
+        File results = new File(System.getProperty("results", "results"));
+        if (!results.isDirectory() && !results.mkdirs()) {
+            throw new IllegalStateException("Cannot create " + results);
+        }
+
+        for (String value : System.getProperty("threads", "1,4").split(",")) {
+            int threads = Integer.parseInt(value.trim());
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(results, "jmh-" + threads + "t.json").getPath())
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.brekfst.simplepunishments.benchmarks;
+
+import com.brekfst.simplepunishments.punishments.IpRange;
+import com.brekfst.simplepunishments.punishments.IpRangeTrie;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// isIPBanned / getIPBan(InetAddress): longest-prefix match against a mix of exact and CIDR bans
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IpBanBenchmark {
+    private static final int PROBES = 4096;
+
+    @Param({"100", "10000", "100000"})
+    public int bans;
+
+    private IpRangeTrie<String> trie;
+    private InetAddress[] banned;
+    private InetAddress[] clean;
+
+    @Setup(Level.Trial)
+    public void setup() throws UnknownHostException {
+        trie = new IpRangeTrie<>();
+        banned = new InetAddress[PROBES];
+        clean = new InetAddress[PROBES];
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        InetAddress[] stored = new InetAddress[bans];
+        for (int i = 0; i < bans; i++) {
+            // Every 10th ban is a /24, the rest single addresses in 10.0.0.0/8
+            InetAddress address = InetAddress.getByAddress(new byte[]{10,
+                    (byte) random.nextInt(256), (byte) random.nextInt(256), (byte) random.nextInt(256)});
+            stored[i] = address;
+            String text = address.getHostAddress() + (i % 10 == 0 ? "/24" : "");
+            trie.put(IpRange.parse(text), text);
+        }
+        for (int i = 0; i < PROBES; i++) {
+            banned[i] = stored[random.nextInt(bans)];
+            clean[i] = InetAddress.getByAddress(new byte[]{(byte) 192, (byte) 168,
+                    (byte) random.nextInt(256), (byte) random.nextInt(256)});
+        }
+    }
+
+    @Benchmark
+    public String bannedAddress() {
+        return trie.match(banned[ThreadLocalRandom.current().nextInt(PROBES)]);
+    }
+
+    @Benchmark
+    public String cleanAddress() {
+        return trie.match(clean[ThreadLocalRandom.current().nextInt(PROBES)]);
+    }
+}
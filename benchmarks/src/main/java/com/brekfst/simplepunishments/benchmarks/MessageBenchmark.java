@@ -0,0 +1,49 @@
+package com.brekfst.simplepunishments.benchmarks;
+
+import com.brekfst.simplepunishments.config.MessageTemplate;
+import com.brekfst.simplepunishments.config.Placeholders;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// ConfigManager.getMessage minus the map lookup: rendering a compiled kick message, and compiling one
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageBenchmark {
+    private static final String PREFIX = "&7[&bSimplePunishments&7]&r ";
+    private static final String BAN_MESSAGE = """
+            &cYou have been temporarily banned from this server!
+            &7Reason: &f%reason%
+            &7Duration: &f%duration%
+            &7Banned by: &f%issuer%
+            &7Expires: &f%expires%""";
+
+    private MessageTemplate template;
+    private Placeholders placeholders;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        template = MessageTemplate.compile(BAN_MESSAGE, PREFIX);
+        placeholders = placeholder -> switch (placeholder) {
+            case REASON -> "Using a hacked client";
+            case DURATION -> "7d";
+            case ISSUER -> "Moderator";
+            case EXPIRES -> "6 days 23 hours 59 minutes";
+            default -> null;
+        };
+    }
+
+    @Benchmark
+    public String render() {
+        return template.render(placeholders);
+    }
+
+    @Benchmark
+    public MessageTemplate compile() {
+        return MessageTemplate.compile(BAN_MESSAGE, PREFIX);
+    }
+}
@@ -0,0 +1,66 @@
+package com.brekfst.simplepunishments.benchmarks;
+
+import com.brekfst.simplepunishments.punishments.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// The per-check work behind getActivePunishment (served from the cache once sync is on), the
+// pre-login ban evaluation and the chat mute check, over growing per-player histories
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PunishmentCheckBenchmark {
+    private static final int PLAYERS = 2000;
+
+    @Param({"1", "10", "100", "1000"})
+    public int historySize;
+
+    @Param({"SHARDED", "COMPACT"})
+    public String layout;
+
+    private PunishmentStore store;
+    private ActiveMuteIndex muteIndex;
+    private UUID[] players;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        store = layout.equals("COMPACT") ? new CompactPunishmentStore(null) : new ShardedPunishmentStore(16);
+        muteIndex = new ActiveMuteIndex();
+        players = new UUID[PLAYERS];
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < PLAYERS; i++) {
+            UUID player = UUID.randomUUID();
+            players[i] = player;
+            // Old lifted punishments first, the active one last: the worst case for a linear scan
+            for (int row = 0; row < historySize - 1; row++) {
+                PunishmentType type = row % 2 == 0 ? PunishmentType.TEMP_BAN : PunishmentType.TEMP_MUTE;
+                store.add(new Punishment(null, player, type, "History " + row, null, 3600L, null, false));
+            }
+            PunishmentType type = random.nextBoolean() ? PunishmentType.BAN : PunishmentType.MUTE;
+            Punishment active = new Punishment(null, player, type, "Active", null, null, null, true);
+            store.add(active);
+            muteIndex.put(active);
+        }
+    }
+
+    private UUID randomPlayer() {
+        return players[ThreadLocalRandom.current().nextInt(PLAYERS)];
+    }
+
+    @Benchmark
+    public Punishment activeBan() {
+        return PunishmentManager.findActive(store.get(randomPlayer()), PunishmentType.BAN);
+    }
+
+    @Benchmark
+    public Punishment activeMute() {
+        return muteIndex.getActiveMute(randomPlayer());
+    }
+}
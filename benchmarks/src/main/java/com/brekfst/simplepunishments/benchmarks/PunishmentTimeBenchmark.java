@@ -0,0 +1,54 @@
+package com.brekfst.simplepunishments.benchmarks;
+
+import com.brekfst.simplepunishments.punishments.DurationFormat;
+import com.brekfst.simplepunishments.punishments.Punishment;
+import com.brekfst.simplepunishments.punishments.PunishmentType;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Expiry checks and the duration formatting/parsing done for every ban message and temp command
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PunishmentTimeBenchmark {
+    private Punishment temporary;
+    private Punishment permanent;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        temporary = new Punishment(null, UUID.randomUUID(), UUID.randomUUID(), PunishmentType.TEMP_BAN, "Spam",
+                null, Instant.now(), 7L * 86400, null, true);
+        permanent = new Punishment(null, UUID.randomUUID(), PunishmentType.BAN, "Cheating", null, null, null, true);
+    }
+
+    @Benchmark
+    public boolean isExpiredTemporary() {
+        return temporary.isExpired();
+    }
+
+    @Benchmark
+    public boolean isExpiredPermanent() {
+        return permanent.isExpired();
+    }
+
+    @Benchmark
+    public String formattedTimeLeft() {
+        return temporary.getFormattedTimeLeft();
+    }
+
+    @Benchmark
+    public long parseDuration() {
+        return DurationFormat.parse("14d");
+    }
+
+    @Benchmark
+    public String formatDuration() {
+        return DurationFormat.format(1_209_600);
+    }
+}
@@ -0,0 +1,136 @@
+package com.brekfst.simplepunishments.benchmarks;
+
+import com.brekfst.simplepunishments.database.DatabaseManager;
+import com.brekfst.simplepunishments.database.SchemaMigrator;
+import com.brekfst.simplepunishments.punishments.Punishment;
+import com.brekfst.simplepunishments.punishments.PunishmentType;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.*;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+// DatabaseManager needs a running plugin, so this drives a file-based SQLite database with the plugin's
+// own schema migrations and the statements and binding DatabaseManager exposes: the writer's batched
+// insert, the login history read and the keyset history page
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SqlitePersistenceBenchmark {
+    private static final int PLAYERS = 500;
+
+    @Param({"10", "100", "1000"})
+    public int historySize;
+
+    private File file;
+    private String url;
+    private UUID[] players;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, SQLException {
+        file = Files.createTempFile("simplepunishments-bench", ".db").toFile();
+        url = "jdbc:sqlite:" + file.getAbsolutePath();
+        players = new UUID[PLAYERS];
+
+        try (Connection conn = connect()) {
+            new SchemaMigrator(Logger.getLogger("SimplePunishments-Benchmark")).migrate(conn);
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(DatabaseManager.INSERT_PUNISHMENT)) {
+                for (int i = 0; i < PLAYERS; i++) {
+                    players[i] = UUID.randomUUID();
+                    for (int row = 0; row < historySize; row++) {
+                        bind(pstmt, players[i], row == historySize - 1);
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                }
+            }
+            conn.commit();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (String suffix : new String[]{"", "-wal", "-shm"}) {
+            new File(file.getPath() + suffix).delete();
+        }
+    }
+
+    // A connection per call matches a pool checkout closely enough for SQLite, where opening is cheap
+    private Connection connect() throws SQLException {
+        Connection conn = DriverManager.getConnection(url);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA journal_mode=WAL");
+            stmt.execute("PRAGMA synchronous=NORMAL");
+            stmt.execute("PRAGMA busy_timeout=5000");
+        }
+        return conn;
+    }
+
+    private void bind(PreparedStatement pstmt, UUID target, boolean active) throws SQLException {
+        Punishment punishment = new Punishment(null, target, PunishmentType.TEMP_BAN, "Benchmark", null, 3600L, null, active);
+        DatabaseManager.bindInsert(pstmt, punishment, new Timestamp(System.currentTimeMillis()));
+    }
+
+    private UUID randomPlayer() {
+        return players[ThreadLocalRandom.current().nextInt(PLAYERS)];
+    }
+
+    // Only saveBatch uses this state, so its sizes do not multiply the read benchmarks
+    @State(Scope.Thread)
+    public static class Batch {
+        @Param({"1", "100", "500"})
+        public int size;
+    }
+
+    @Benchmark
+    public int saveBatch(Batch batch) throws SQLException {
+        try (Connection conn = connect()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(DatabaseManager.INSERT_PUNISHMENT)) {
+                UUID target = randomPlayer();
+                for (int i = 0; i < batch.size; i++) {
+                    bind(pstmt, target, false);
+                    pstmt.addBatch();
+                }
+                int written = pstmt.executeBatch().length;
+                conn.commit();
+                return written;
+            }
+        }
+    }
+
+    @Benchmark
+    public int loadPlayer() throws SQLException {
+        return count(DatabaseManager.LOAD_PLAYER_PUNISHMENTS, -1);
+    }
+
+    @Benchmark
+    public int loadHistoryPage() throws SQLException {
+        return count(DatabaseManager.LOAD_FIRST_HISTORY_PAGE, 46);
+    }
+
+    private int count(String sql, int limit) throws SQLException {
+        try (Connection conn = connect();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, randomPlayer().toString());
+            if (limit > 0) pstmt.setInt(2, limit);
+            int rows = 0;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    rs.getString("reason");
+                    rows++;
+                }
+            }
+            return rows;
+        }
+    }
+}
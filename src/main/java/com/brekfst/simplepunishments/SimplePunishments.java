@@ -1,31 +1,69 @@
 package com.brekfst.simplepunishments;
 
+import com.brekfst.simplepunishments.commands.AdminCommand;
 import com.brekfst.simplepunishments.commands.PunishmentCommand;
 import com.brekfst.simplepunishments.config.ConfigManager;
 import com.brekfst.simplepunishments.database.DatabaseManager;
 import com.brekfst.simplepunishments.events.PunishmentListener;
+import com.brekfst.simplepunishments.exporter.PunishmentExporter;
+import com.brekfst.simplepunishments.gui.HistoryGUI;
+import com.brekfst.simplepunishments.importer.BanImporter;
+import com.brekfst.simplepunishments.metrics.Metrics;
+import com.brekfst.simplepunishments.metrics.MetricsExporter;
+import com.brekfst.simplepunishments.players.PlayerDirectory;
 import com.brekfst.simplepunishments.punishments.PunishmentManager;
+import com.brekfst.simplepunishments.sync.SyncService;
 import org.bukkit.plugin.java.JavaPlugin;
 
 public class SimplePunishments extends JavaPlugin {
     private PunishmentManager punishmentManager;
     private DatabaseManager databaseManager;
     private ConfigManager configManager;
+    private PlayerDirectory playerDirectory;
+    private HistoryGUI historyGUI;
+    private SyncService syncService;
+    private Metrics metrics;
+    private MetricsExporter metricsExporter;
+    private BanImporter banImporter;
+    private PunishmentExporter punishmentExporter;
 
     @Override
     public void onEnable() {
         saveDefaultConfig();
         configManager = new ConfigManager(this);
+        metrics = new Metrics();
         databaseManager = new DatabaseManager(this);
+        playerDirectory = new PlayerDirectory(this);
+        syncService = new SyncService(this);
+        syncService.start();
         punishmentManager = new PunishmentManager(this);
+        historyGUI = new HistoryGUI(this);
+        banImporter = new BanImporter(this);
+        punishmentExporter = new PunishmentExporter(this);
         registerCommands();
         registerListeners();
-        startCleanupTask();
+        metricsExporter = new MetricsExporter(this, metrics);
+        metricsExporter.start();
     }
 
     @Override
     public void onDisable() {
+        if (metricsExporter != null) {
+            metricsExporter.stop();
+        }
+        if (banImporter != null) {
+            // Progress up to the last committed batch is checkpointed; the import resumes next time
+            banImporter.shutdown(getConfig().getLong("import.shutdown-timeout", 30) * 1000);
+        }
+        if (punishmentManager != null) {
+            punishmentManager.shutdown();
+        }
+        if (syncService != null) {
+            syncService.shutdown();
+        }
         if (databaseManager != null) {
+            // Drain queued writes before the pools close
+            databaseManager.shutdownWriter();
             databaseManager.closeConnection();
         }
     }
@@ -41,18 +79,12 @@ public class SimplePunishments extends JavaPlugin {
         getCommand("unmute").setExecutor(punishmentCommand);
         getCommand("kick").setExecutor(punishmentCommand);
         getCommand("history").setExecutor(punishmentCommand);
+        getCommand("sp").setExecutor(new AdminCommand(this));
     }
 
     private void registerListeners() {
         getServer().getPluginManager().registerEvents(new PunishmentListener(this), this);
-    }
-
-    private void startCleanupTask() {
-        getServer().getScheduler().runTaskTimerAsynchronously(this,
-                () -> punishmentManager.cleanupExpiredPunishments(),
-                20L * 60,
-                20L * 60 * 30
-        );
+        getServer().getPluginManager().registerEvents(historyGUI, this);
     }
 
     public PunishmentManager getPunishmentManager() {
@@ -66,4 +98,28 @@ public class SimplePunishments extends JavaPlugin {
     public ConfigManager getConfigManager() {
         return configManager;
     }
+
+    public PlayerDirectory getPlayerDirectory() {
+        return playerDirectory;
+    }
+
+    public SyncService getSyncService() {
+        return syncService;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public HistoryGUI getHistoryGUI() {
+        return historyGUI;
+    }
+
+    public BanImporter getBanImporter() {
+        return banImporter;
+    }
+
+    public PunishmentExporter getPunishmentExporter() {
+        return punishmentExporter;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,357 @@
+package com.brekfst.simplepunishments.commands;
+
+import com.brekfst.simplepunishments.SimplePunishments;
+import com.brekfst.simplepunishments.config.ConfigManager;
+import com.brekfst.simplepunishments.config.Placeholder;
+import com.brekfst.simplepunishments.exporter.ExportFormat;
+import com.brekfst.simplepunishments.importer.BanImporter;
+import com.brekfst.simplepunishments.importer.VanillaBanReader;
+import com.brekfst.simplepunishments.metrics.Metrics;
+import com.brekfst.simplepunishments.players.PlayerProfile;
+import com.brekfst.simplepunishments.punishments.DurationFormat;
+import com.brekfst.simplepunishments.punishments.PunishmentFilter;
+import com.brekfst.simplepunishments.punishments.PunishmentType;
+import com.brekfst.simplepunishments.punishments.WaveResult;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabCompleter;
+import org.bukkit.entity.Player;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+// /sp <subcommand>: plugin administration rather than punishing players
+public class AdminCommand implements CommandExecutor, TabCompleter {
+    private static final List<String> SUBCOMMANDS = Arrays.asList("reload", "stats", "import", "export", "wave");
+    private static final List<String> IMPORT_OPTIONS = Arrays.asList("players", "ips", "cancel");
+    private static final List<String> EXPORT_FORMATS = Arrays.asList("ndjson", "csv");
+    private static final List<String> WAVE_TYPES = Arrays.asList("ban", "mute");
+    private static final List<String> EXPORT_OPTIONS = Arrays.asList("from:", "to:", "type:", "issuer:", "gzip");
+
+    private final SimplePunishments plugin;
+    private final ConfigManager config;
+
+    public AdminCommand(SimplePunishments plugin) {
+        this.plugin = plugin;
+        this.config = plugin.getConfigManager();
+    }
+
+    @Override
+    public boolean onCommand(CommandSender sender, Command cmd, String label, String[] args) {
+        if (!sender.hasPermission("simplepunishments.admin")) {
+            sender.sendMessage(config.getMessage("no-permission"));
+            return true;
+        }
+
+        if (args.length < 1) {
+            sender.sendMessage(config.getMessage("command.sp.usage"));
+            return true;
+        }
+
+        switch (args[0].toLowerCase()) {
+            case "reload" -> handleReload(sender);
+            case "stats" -> handleStats(sender);
+            case "import" -> handleImport(sender, args);
+            case "export" -> handleExport(sender, args);
+            case "wave" -> handleWave(sender, args);
+            default -> sender.sendMessage(config.getMessage("command.sp.usage"));
+        }
+        return true;
+    }
+
+    private void handleReload(CommandSender sender) {
+        try {
+            config.reload();
+            sender.sendMessage(config.getMessage("command.sp.reload-success"));
+        } catch (Exception e) {
+            plugin.getLogger().severe("Failed to reload config: " + e.getMessage());
+            sender.sendMessage(config.getMessage("command.error"));
+        }
+    }
+
+    private void handleStats(CommandSender sender) {
+        Metrics metrics = plugin.getMetrics();
+        sender.sendMessage(config.getMessage("command.sp.stats-header"));
+
+        metrics.counters().forEach((name, value) -> sendStat(sender, name, String.valueOf(value)));
+        metrics.gauges().forEach((name, value) -> sendStat(sender, name, String.valueOf(value)));
+        metrics.timers().forEach((name, snapshot) -> {
+            if (snapshot.getCount() == 0) return;
+            sendStat(sender, name, String.format(Locale.ROOT, "n=%d p50=%s p99=%s max=%s",
+                    snapshot.getCount(),
+                    formatNanos(snapshot.getValueAt(0.5)),
+                    formatNanos(snapshot.getValueAt(0.99)),
+                    formatNanos(snapshot.getMax())));
+        });
+    }
+
+    private void sendStat(CommandSender sender, String name, String value) {
+        sender.sendMessage(config.getMessage("command.sp.stats-line", placeholder -> switch (placeholder) {
+            case METRIC -> name;
+            case VALUE -> value;
+            default -> null;
+        }));
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos < 1_000_000) return String.format(Locale.ROOT, "%.1fus", nanos / 1_000.0);
+        return String.format(Locale.ROOT, "%.2fms", nanos / 1_000_000.0);
+    }
+
+    // /sp import <players|ips> [file], defaulting to the vanilla file in the server directory
+    private void handleImport(CommandSender sender, String[] args) {
+        BanImporter importer = plugin.getBanImporter();
+        if (args.length < 2) {
+            sender.sendMessage(config.getMessage("command.sp.import-usage"));
+            return;
+        }
+
+        if (args[1].equalsIgnoreCase("cancel")) {
+            sender.sendMessage(config.getMessage(importer.cancel() ?
+                    "command.sp.import-cancelling" : "command.sp.import-not-running"));
+            return;
+        }
+
+        VanillaBanReader.Source source;
+        switch (args[1].toLowerCase()) {
+            case "players" -> source = VanillaBanReader.Source.PLAYERS;
+            case "ips" -> source = VanillaBanReader.Source.IPS;
+            default -> {
+                sender.sendMessage(config.getMessage("command.sp.import-usage"));
+                return;
+            }
+        }
+
+        File file = new File(args.length > 2 ? args[2] : source.getDefaultFile());
+        if (!file.isFile()) {
+            sender.sendMessage(config.getMessage("command.sp.import-file-missing", placeholder ->
+                    placeholder == Placeholder.FILE ? file.getPath() : null));
+            return;
+        }
+
+        if (!importer.start(sender, source, file)) {
+            sender.sendMessage(config.getMessage("command.sp.import-running"));
+        }
+    }
+
+    // /sp export <ndjson|csv> [from:<date>] [to:<date>] [type:<type,...>] [issuer:<name|console>] [gzip]
+    private void handleExport(CommandSender sender, String[] args) {
+        if (args.length < 2) {
+            sender.sendMessage(config.getMessage("command.sp.export-usage"));
+            return;
+        }
+
+        ExportFormat format;
+        try {
+            format = ExportFormat.valueOf(args[1].toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            sender.sendMessage(config.getMessage("command.sp.export-usage"));
+            return;
+        }
+
+        Instant from = null, to = null;
+        Set<PunishmentType> types = EnumSet.noneOf(PunishmentType.class);
+        String issuer = null;
+        boolean gzip = false;
+
+        for (int i = 2; i < args.length; i++) {
+            String option = args[i];
+            int colon = option.indexOf(':');
+            String key = (colon < 0 ? option : option.substring(0, colon)).toLowerCase(Locale.ROOT);
+            String value = colon < 0 ? "" : option.substring(colon + 1);
+            try {
+                switch (key) {
+                    case "from" -> from = LocalDate.parse(value).atStartOfDay(ZoneId.systemDefault()).toInstant();
+                    // Inclusive of the whole day given
+                    case "to" -> to = LocalDate.parse(value).plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant();
+                    case "type" -> {
+                        for (String type : value.split(",")) {
+                            types.add(PunishmentType.valueOf(type.trim().toUpperCase(Locale.ROOT)));
+                        }
+                    }
+                    case "issuer" -> issuer = value;
+                    case "gzip" -> gzip = true;
+                    default -> throw new IllegalArgumentException(option);
+                }
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                sender.sendMessage(config.getMessage("command.sp.export-invalid-option", placeholder ->
+                        placeholder == Placeholder.VALUE ? option : null));
+                return;
+            }
+        }
+
+        Instant fromBound = from, toBound = to;
+        boolean compress = gzip;
+        if (issuer == null || issuer.equalsIgnoreCase("console")) {
+            startExport(sender, format, new PunishmentFilter(fromBound, toBound, types, issuer != null, null), compress);
+            return;
+        }
+
+        String issuerName = issuer;
+        plugin.getPlayerDirectory().lookup(issuerName).whenComplete((profile, error) ->
+                plugin.getServer().getScheduler().runTask(plugin, () -> {
+                    if (error != null) {
+                        plugin.getLogger().severe("Failed to resolve player " + issuerName + ": " + error.getMessage());
+                        sender.sendMessage(config.getMessage("command.error"));
+                    } else if (profile == null) {
+                        sender.sendMessage(config.getMessage("player-not-found"));
+                    } else {
+                        startExport(sender, format,
+                                new PunishmentFilter(fromBound, toBound, types, true, profile.getUniqueId()), compress);
+                    }
+                }));
+    }
+
+    private void startExport(CommandSender sender, ExportFormat format, PunishmentFilter filter, boolean gzip) {
+        if (!plugin.getPunishmentExporter().start(sender, format, filter, gzip)) {
+            sender.sendMessage(config.getMessage("command.sp.export-running"));
+        }
+    }
+
+    // /sp wave <file|name,name,...> <ban|mute> [duration] [reason]; the file holds one name or UUID per line
+    private void handleWave(CommandSender sender, String[] args) {
+        if (args.length < 3 || !WAVE_TYPES.contains(args[2].toLowerCase(Locale.ROOT))) {
+            sender.sendMessage(config.getMessage("command.sp.wave-usage"));
+            return;
+        }
+
+        List<String> inputs;
+        try {
+            inputs = readWaveTargets(args[1]);
+        } catch (IOException e) {
+            plugin.getLogger().severe("Failed to read wave targets from " + args[1] + ": " + e.getMessage());
+            sender.sendMessage(config.getMessage("command.error"));
+            return;
+        }
+
+        boolean ban = args[2].equalsIgnoreCase("ban");
+        int reasonStart = 3;
+        Long duration = null;
+        if (args.length > 3 && DurationFormat.parse(args[3]) > 0) {
+            duration = DurationFormat.parse(args[3]);
+            reasonStart = 4;
+        }
+        PunishmentType type = ban
+                ? (duration == null ? PunishmentType.BAN : PunishmentType.TEMP_BAN)
+                : (duration == null ? PunishmentType.MUTE : PunishmentType.TEMP_MUTE);
+        String reason = args.length > reasonStart ? String.join(" ", Arrays.copyOfRange(args, reasonStart, args.length))
+                : config.getMessage("default-reason");
+        UUID issuerId = sender instanceof Player ? ((Player) sender).getUniqueId() : null;
+        Long waveDuration = duration;
+
+        sender.sendMessage(config.getMessage("command.sp.wave-started", placeholder ->
+                placeholder == Placeholder.TOTAL ? String.valueOf(inputs.size()) : null));
+
+        plugin.getPlayerDirectory().lookupAll(inputs).whenComplete((profiles, error) -> runOnMainThread(() -> {
+            if (error != null) {
+                plugin.getLogger().severe("Failed to resolve wave targets: " + error.getMessage());
+                sender.sendMessage(config.getMessage("command.error"));
+                return;
+            }
+            if (profiles.isEmpty()) {
+                sender.sendMessage(config.getMessage("command.sp.wave-empty"));
+                return;
+            }
+
+            List<UUID> targets = new ArrayList<>(profiles.size());
+            for (PlayerProfile profile : profiles.values()) {
+                targets.add(profile.getUniqueId());
+            }
+            int unknown = inputs.size() - profiles.size();
+            plugin.getPunishmentManager().punishAll(targets, type, reason, issuerId, waveDuration)
+                    .whenComplete((result, waveError) -> runOnMainThread(() -> reportWave(sender, result, waveError, unknown)));
+        }));
+    }
+
+    private void reportWave(CommandSender sender, WaveResult result, Throwable error, int unknown) {
+        if (error != null) {
+            plugin.getLogger().severe("Punishment wave failed: " + error.getMessage());
+            sender.sendMessage(config.getMessage("command.error"));
+        } else if (result.isCancelled()) {
+            sender.sendMessage(config.getMessage("command.sp.wave-cancelled"));
+        } else {
+            sender.sendMessage(config.getMessage("command.sp.wave-complete", placeholder -> switch (placeholder) {
+                case TOTAL -> String.valueOf(result.getPunished().size());
+                case SKIPPED -> String.valueOf(result.getAlreadyPunished());
+                case UNKNOWN -> String.valueOf(unknown);
+                default -> null;
+            }));
+        }
+    }
+
+    // A file in the plugin folder (or a path) with one name or UUID per line, otherwise a comma separated list
+    private List<String> readWaveTargets(String argument) throws IOException {
+        File file = new File(plugin.getDataFolder(), argument);
+        if (!file.isFile()) {
+            file = new File(argument);
+        }
+
+        Set<String> targets = new LinkedHashSet<>();
+        if (file.isFile()) {
+            for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    targets.add(line);
+                }
+            }
+        } else {
+            for (String name : argument.split(",")) {
+                if (!name.isBlank()) {
+                    targets.add(name.trim());
+                }
+            }
+        }
+        return new ArrayList<>(targets);
+    }
+
+    private void runOnMainThread(Runnable task) {
+        if (plugin.getServer().isPrimaryThread()) {
+            task.run();
+        } else {
+            plugin.getServer().getScheduler().runTask(plugin, task);
+        }
+    }
+
+    @Override
+    public List<String> onTabComplete(CommandSender sender, Command cmd, String label, String[] args) {
+        if (!sender.hasPermission("simplepunishments.admin")) {
+            return new ArrayList<>();
+        }
+
+        List<String> options;
+        if (args.length == 1) {
+            options = SUBCOMMANDS;
+        } else if (args.length == 2 && args[0].equalsIgnoreCase("import")) {
+            options = IMPORT_OPTIONS;
+        } else if (args.length == 3 && args[0].equalsIgnoreCase("wave")) {
+            options = WAVE_TYPES;
+        } else if (args.length == 2 && args[0].equalsIgnoreCase("export")) {
+            options = EXPORT_FORMATS;
+        } else if (args.length > 2 && args[0].equalsIgnoreCase("export")) {
+            options = EXPORT_OPTIONS;
+        } else {
+            return new ArrayList<>();
+        }
+
+        String partial = args[args.length - 1].toLowerCase();
+        return options.stream()
+                .filter(sub -> sub.startsWith(partial))
+                .collect(Collectors.toList());
+    }
+}
@@ -2,10 +2,13 @@ package com.brekfst.simplepunishments.commands;
 
 import com.brekfst.simplepunishments.*;
 import com.brekfst.simplepunishments.config.ConfigManager;
-import com.brekfst.simplepunishments.gui.HistoryGUI;
+import com.brekfst.simplepunishments.config.Placeholders;
+import com.brekfst.simplepunishments.database.DatabaseUnavailableException;
+import com.brekfst.simplepunishments.players.PlayerProfile;
+import com.brekfst.simplepunishments.punishments.DurationFormat;
+import com.brekfst.simplepunishments.punishments.IpRange;
 import com.brekfst.simplepunishments.punishments.Punishment;
 import com.brekfst.simplepunishments.punishments.PunishmentType;
-import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
@@ -14,9 +17,13 @@ import org.bukkit.entity.Player;
 
 import java.time.Instant;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class PunishmentCommand implements CommandExecutor, TabCompleter {
+    private static final int COMPLETION_LIMIT = 50;
+
     private final SimplePunishments plugin;
     private final ConfigManager config;
 
@@ -38,14 +45,36 @@ public class PunishmentCommand implements CommandExecutor, TabCompleter {
         }
 
         String targetName = args[0];
-        OfflinePlayer target = plugin.getServer().getOfflinePlayer(targetName);
+        UUID issuerId = (sender instanceof Player) ? ((Player) sender).getUniqueId() : null;
 
-        if (!target.hasPlayedBefore() && !target.isOnline()) {
-            sender.sendMessage(config.getMessage("player-not-found"));
+        // /ipban and /unban also accept an address or CIDR range such as 1.2.3.0/24
+        IpRange range = IpRange.parse(targetName);
+        if (range != null && cmd.getName().equalsIgnoreCase("ipban")) {
+            String reason = args.length > 1 ? String.join(" ", Arrays.copyOfRange(args, 1, args.length))
+                    : config.getMessage("default-reason");
+            handleRangeBan(sender, range, reason, issuerId);
+            return true;
+        }
+        if (range != null && cmd.getName().equalsIgnoreCase("unban")) {
+            handleRangeUnban(sender, range);
             return true;
         }
 
-        UUID issuerId = (sender instanceof Player) ? ((Player) sender).getUniqueId() : null;
+        // Names resolve from the player directory; a miss is looked up off the main thread
+        plugin.getPlayerDirectory().lookup(targetName).whenComplete((target, error) -> runOnMainThread(() -> {
+            if (error != null) {
+                plugin.getLogger().severe("Failed to resolve player " + targetName + ": " + error.getMessage());
+                sender.sendMessage(config.getMessage("command.error"));
+            } else if (target == null) {
+                sender.sendMessage(config.getMessage("player-not-found"));
+            } else {
+                dispatch(sender, cmd, args, target, issuerId);
+            }
+        }));
+        return true;
+    }
+
+    private void dispatch(CommandSender sender, Command cmd, String[] args, PlayerProfile target, UUID issuerId) {
         String reason = args.length > 1 ? String.join(" ", Arrays.copyOfRange(args, 1, args.length))
                 : config.getMessage("default-reason");
 
@@ -60,45 +89,71 @@ public class PunishmentCommand implements CommandExecutor, TabCompleter {
             case "history" -> handleHistory(sender, target);
             case "ipban" -> handleIPBan(sender, target, reason, issuerId);
         }
-        return true;
     }
 
-    private void handleBan(CommandSender sender, OfflinePlayer target, String reason, UUID issuerId, Long duration, String formattedDuration) {
-
-        if (plugin.getPunishmentManager().getActivePunishment(target.getUniqueId(), PunishmentType.BAN).isPresent()) {
-            sender.sendMessage(config.getMessage("already-banned"));
-            return;
+    private void runOnMainThread(Runnable task) {
+        if (plugin.getServer().isPrimaryThread()) {
+            task.run();
+        } else {
+            plugin.getServer().getScheduler().runTask(plugin, task);
         }
+    }
+
+    // Checks that may query the database run off the main thread; only applying the result comes back to it
+    private <T> void checkAsync(CommandSender sender, Supplier<T> check, Consumer<T> apply) {
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            try {
+                T result = check.get();
+                runOnMainThread(() -> apply.accept(result));
+            } catch (DatabaseUnavailableException e) {
+                runOnMainThread(() -> sender.sendMessage(config.getMessage("database-unavailable")));
+            } catch (RuntimeException e) {
+                plugin.getLogger().severe("Failed to check punishments: " + e.getMessage());
+                runOnMainThread(() -> sender.sendMessage(config.getMessage("command.error")));
+            }
+        });
+    }
 
+    private void handleBan(CommandSender sender, PlayerProfile target, String reason, UUID issuerId, Long duration, String formattedDuration) {
+        checkAsync(sender, () -> plugin.getPunishmentManager().getActivePunishment(target.getUniqueId(), PunishmentType.BAN),
+                existingBan -> {
+                    if (existingBan.isPresent()) {
+                        sender.sendMessage(config.getMessage("already-banned"));
+                    } else {
+                        applyBan(sender, target, reason, issuerId, duration, formattedDuration);
+                    }
+                });
+    }
+
+    private void applyBan(CommandSender sender, PlayerProfile target, String reason, UUID issuerId, Long duration, String formattedDuration) {
         PunishmentType type = (duration == null) ? PunishmentType.BAN : PunishmentType.TEMP_BAN;
 
         try {
             plugin.getPunishmentManager().punishPlayer(target.getUniqueId(), type, reason, issuerId, duration, null);
 
             // Send success message
-            Map<String, String> placeholders = new HashMap<>();
-            placeholders.put("player", target.getName());
-            placeholders.put("reason", reason);
-            placeholders.put("duration", formattedDuration); // Use provided formatted duration
-
             String messageKey = (duration == null) ? "command.ban.success" : "command.tempban.success";
-            sender.sendMessage(config.getMessage(messageKey, placeholders));
+            sender.sendMessage(config.getMessage(messageKey, placeholder -> switch (placeholder) {
+                case PLAYER -> target.getName();
+                case REASON -> reason;
+                case DURATION -> formattedDuration; // Use provided formatted duration
+                default -> null;
+            }));
 
             // Kick if online
-            if (target.isOnline() && target.getPlayer() != null) {
-                Player player = target.getPlayer();
-                Map<String, String> placeholders1 = new HashMap<>();
-                placeholders1.put("player", target.getName());
-                placeholders1.put("reason", reason);
-                placeholders1.put("duration", duration == null ? "permanent" : formatDuration(duration)); // Static duration
-                placeholders1.put("expires", duration == null ? "never" :
-                        plugin.getPunishmentManager().formatExpiration(Instant.now().plusSeconds(duration))); // Countdown
-                placeholders1.put("issuer", issuerId != null ?
-                        plugin.getServer().getOfflinePlayer(issuerId).getName() : "Console");
-
+            Player player = plugin.getServer().getPlayer(target.getUniqueId());
+            if (player != null) {
                 String banMessage = config.getMessage(
                         (duration == null) ? "ban-message" : "temp-ban-message",
-                        placeholders1
+                        placeholder -> switch (placeholder) {
+                            case PLAYER -> target.getName();
+                            case REASON -> reason;
+                            case DURATION -> duration == null ? "permanent" : DurationFormat.format(duration); // Static duration
+                            case EXPIRES -> duration == null ? "never" :
+                                    plugin.getPunishmentManager().formatExpiration(Instant.now().plusSeconds(duration)); // Countdown
+                            case ISSUER -> issuerName(issuerId);
+                            default -> null;
+                        }
                 );
                 player.kickPlayer(banMessage);
             }
@@ -107,53 +162,94 @@ public class PunishmentCommand implements CommandExecutor, TabCompleter {
         }
     }
 
-    private void handleIPBan(CommandSender sender, OfflinePlayer target, String reason, UUID issuerId) {
-        if (!target.isOnline()) {
+    private void handleIPBan(CommandSender sender, PlayerProfile target, String reason, UUID issuerId) {
+        Player player = plugin.getServer().getPlayer(target.getUniqueId());
+        if (player == null) {
             sender.sendMessage(config.getMessage("player-not-online"));
             return;
         }
 
-        Player player = target.getPlayer();
         String ip = player.getAddress().getAddress().getHostAddress();
 
-        if (plugin.getPunishmentManager().isIPBanned(ip)) {
-            sender.sendMessage(config.getMessage("ip-already-banned"));
-            return;
-        }
+        checkAsync(sender, () -> plugin.getPunishmentManager().isIPBanned(ip), banned -> {
+            if (banned) {
+                sender.sendMessage(config.getMessage("ip-already-banned"));
+            } else {
+                applyIPBan(sender, target, ip, reason, issuerId);
+            }
+        });
+    }
 
+    private void applyIPBan(CommandSender sender, PlayerProfile target, String ip, String reason, UUID issuerId) {
         plugin.getPunishmentManager().punishPlayer(target.getUniqueId(), PunishmentType.IP_BAN, reason, issuerId, null, ip);
 
         // Kick all players with the same IP
+        String kickMessage = ipBanMessage(reason, issuerId);
         for (Player onlinePlayer : plugin.getServer().getOnlinePlayers()) {
             String playerIP = onlinePlayer.getAddress().getAddress().getHostAddress();
             if (playerIP.equals(ip)) {
-                Map<String, String> placeholders = new HashMap<>();
-                placeholders.put("reason", reason);
-                placeholders.put("duration", "Permanent");
-                placeholders.put("issuer", issuerId != null ?
-                        plugin.getServer().getOfflinePlayer(issuerId).getName() : "Console");
-                onlinePlayer.kickPlayer(config.getMessage("ipban-message", placeholders));
+                onlinePlayer.kickPlayer(kickMessage);
             }
         }
 
         // Send success message
-        Map<String, String> placeholders = new HashMap<>();
-        placeholders.put("player", target.getName());
-        placeholders.put("ip", ip);
-        placeholders.put("reason", reason);
-        placeholders.put("duration", "Permanent");
-        sender.sendMessage(config.getMessage("command.ipban.success", placeholders));
+        sender.sendMessage(config.getMessage("command.ipban.success", placeholder -> switch (placeholder) {
+            case PLAYER -> target.getName();
+            case IP -> ip;
+            case REASON -> reason;
+            case DURATION -> "Permanent";
+            default -> null;
+        }));
     }
 
-    private void handleTempBan(CommandSender sender, OfflinePlayer target, String[] args, String reason, UUID issuerId) {
+    private void handleRangeBan(CommandSender sender, IpRange range, String reason, UUID issuerId) {
+        if (plugin.getPunishmentManager().getRangeBan(range) != null) {
+            sender.sendMessage(config.getMessage("ip-already-banned"));
+            return;
+        }
+
+        plugin.getPunishmentManager().punishPlayer(range.getTargetId(), PunishmentType.IP_BAN, reason, issuerId, null, range.toString());
+
+        // Kick everyone connected from inside the range
+        String kickMessage = ipBanMessage(reason, issuerId);
+        for (Player onlinePlayer : plugin.getServer().getOnlinePlayers()) {
+            if (range.contains(onlinePlayer.getAddress().getAddress())) {
+                onlinePlayer.kickPlayer(kickMessage);
+            }
+        }
+
+        sender.sendMessage(config.getMessage("command.ipban.success-range", placeholder -> switch (placeholder) {
+            case IP -> range.toString();
+            case REASON -> reason;
+            default -> null;
+        }));
+    }
+
+    private void handleRangeUnban(CommandSender sender, IpRange range) {
+        if (plugin.getPunishmentManager().getRangeBan(range) == null) {
+            sender.sendMessage(config.getMessage("not-banned"));
+            return;
+        }
+
+        try {
+            plugin.getPunishmentManager().removeIPBan(range.toString());
+        } catch (DatabaseUnavailableException e) {
+            sender.sendMessage(config.getMessage("database-unavailable"));
+            return;
+        }
+
+        sender.sendMessage(config.getMessage("command.unban.success-ip", Placeholders.player(range.toString())));
+    }
+
+    private void handleTempBan(CommandSender sender, PlayerProfile target, String[] args, String reason, UUID issuerId) {
 
         if (args.length < 2) {
             sender.sendMessage(config.getMessage("command.tempban.usage"));
             return;
         }
 
-        long duration = parseDuration(args[1]);
-        String formattedDuration = formatDuration(duration);
+        long duration = DurationFormat.parse(args[1]);
+        String formattedDuration = DurationFormat.format(duration);
 
         if (duration <= 0) {
             sender.sendMessage(config.getMessage("invalid-duration"));
@@ -165,43 +261,25 @@ public class PunishmentCommand implements CommandExecutor, TabCompleter {
                 String.join(" ", Arrays.copyOfRange(args, 2, args.length)) :
                 config.getMessage("default-reason");
 
-        // Double check if already banned
-        Optional<Punishment> existingBan = plugin.getPunishmentManager()
-                .getActivePunishment(target.getUniqueId(), PunishmentType.BAN);
-
-        if (existingBan.isPresent()) {
-            sender.sendMessage(config.getMessage("already-banned"));
-            return;
-        }
-
         handleBan(sender, target, actualReason, issuerId, duration, formattedDuration);
     }
 
 
-    private void handleUnban(CommandSender sender, OfflinePlayer target) {
+    private void handleUnban(CommandSender sender, PlayerProfile target) {
         // Debug current punishments
         plugin.getPunishmentManager().logAllPunishments(target.getUniqueId());
 
-        // Check for regular ban with retry
-        Optional<Punishment> regularBan = plugin.getPunishmentManager()
-                .getActivePunishment(target.getUniqueId(), PunishmentType.BAN);
+        checkAsync(sender, () -> plugin.getPunishmentManager().getActivePunishment(target.getUniqueId(), PunishmentType.BAN),
+                regularBan -> applyUnban(sender, target, regularBan));
+    }
 
+    private void applyUnban(CommandSender sender, PlayerProfile target, Optional<Punishment> regularBan) {
         boolean wasRegularBanned = regularBan.isPresent();
 
         // Check for IP ban
-        boolean wasIPBanned = false;
-        String bannedIP = null;
-        List<Punishment> allPunishments = plugin.getPunishmentManager().getAllPunishments();
-
-        for (Punishment punishment : allPunishments) {
-            if (punishment.getType() == PunishmentType.IP_BAN
-                    && punishment.getTargetId().equals(target.getUniqueId())
-                    && punishment.isActive()) {
-                wasIPBanned = true;
-                bannedIP = punishment.getBannedIP();
-                break;
-            }
-        }
+        Punishment ipBan = plugin.getPunishmentManager().getActiveIPBan(target.getUniqueId());
+        boolean wasIPBanned = ipBan != null;
+        String bannedIP = wasIPBanned ? ipBan.getBannedIP() : null;
 
         if (!wasRegularBanned && !wasIPBanned) {
             sender.sendMessage(config.getMessage("not-banned"));
@@ -210,17 +288,19 @@ public class PunishmentCommand implements CommandExecutor, TabCompleter {
 
         // Remove the bans
         if (wasRegularBanned) {
-            plugin.getPunishmentManager().removePunishment(target.getUniqueId(), PunishmentType.BAN);
+            plugin.getPunishmentManager().removePunishment(regularBan.get());
         }
 
         if (wasIPBanned && bannedIP != null) {
-            plugin.getPunishmentManager().removeIPBan(bannedIP);
+            try {
+                plugin.getPunishmentManager().removeIPBan(bannedIP);
+            } catch (DatabaseUnavailableException e) {
+                sender.sendMessage(config.getMessage("database-unavailable"));
+                return;
+            }
         }
 
         // Send success message
-        Map<String, String> placeholders = new HashMap<>();
-        placeholders.put("player", target.getName());
-
         String messageKey;
 
         if (wasRegularBanned && wasIPBanned) {
@@ -231,28 +311,31 @@ public class PunishmentCommand implements CommandExecutor, TabCompleter {
             messageKey = "command.unban.success";
         }
 
-        String messageText = config.getMessage(messageKey, placeholders);
+        String messageText = config.getMessage(messageKey, Placeholders.player(target.getName()));
         sender.sendMessage(messageText);
     }
 
 
-    private void handleMute(CommandSender sender, OfflinePlayer target, String reason, UUID issuerId, Long duration) {
-        if (plugin.getPunishmentManager().getActivePunishment(target.getUniqueId(), PunishmentType.MUTE).isPresent()) {
-            sender.sendMessage(config.getMessage("already-muted"));
-            return;
-        }
+    private void handleMute(CommandSender sender, PlayerProfile target, String reason, UUID issuerId, Long duration) {
+        checkAsync(sender, () -> plugin.getPunishmentManager().getActivePunishment(target.getUniqueId(), PunishmentType.MUTE),
+                existingMute -> {
+                    if (existingMute.isPresent()) {
+                        sender.sendMessage(config.getMessage("already-muted"));
+                        return;
+                    }
 
-        plugin.getPunishmentManager().punishPlayer(target.getUniqueId(), PunishmentType.MUTE, reason, issuerId, duration, null);
-        sendSuccessMessage(sender, "mute", target, reason, duration);
+                    plugin.getPunishmentManager().punishPlayer(target.getUniqueId(), PunishmentType.MUTE, reason, issuerId, duration, null);
+                    sendSuccessMessage(sender, "mute", target, reason, duration);
+                });
     }
 
-    private void handleTempMute(CommandSender sender, OfflinePlayer target, String[] args, String reason, UUID issuerId) {
+    private void handleTempMute(CommandSender sender, PlayerProfile target, String[] args, String reason, UUID issuerId) {
         if (args.length < 2) {
             sender.sendMessage(config.getMessage("command.tempmute.usage"));
             return;
         }
 
-        long duration = parseDuration(args[1]);
+        long duration = DurationFormat.parse(args[1]);
         if (duration <= 0) {
             sender.sendMessage(config.getMessage("invalid-duration"));
             return;
@@ -265,18 +348,21 @@ public class PunishmentCommand implements CommandExecutor, TabCompleter {
         handleMute(sender, target, actualReason, issuerId, duration);
     }
 
-    private void handleUnmute(CommandSender sender, OfflinePlayer target) {
-        if (plugin.getPunishmentManager().getActivePunishment(target.getUniqueId(), PunishmentType.MUTE).isEmpty()) {
-            sender.sendMessage(config.getMessage("not-muted"));
-            return;
-        }
-
-        plugin.getPunishmentManager().removePunishment(target.getUniqueId(), PunishmentType.MUTE);
-        sendSuccessMessage(sender, "unmute", target, null, null);
+    private void handleUnmute(CommandSender sender, PlayerProfile target) {
+        checkAsync(sender, () -> plugin.getPunishmentManager().getActivePunishment(target.getUniqueId(), PunishmentType.MUTE),
+                mute -> {
+                    if (mute.isEmpty()) {
+                        sender.sendMessage(config.getMessage("not-muted"));
+                        return;
+                    }
+
+                    plugin.getPunishmentManager().removePunishment(mute.get());
+                    sendSuccessMessage(sender, "unmute", target, null, null);
+                });
     }
 
-    private void handleKick(CommandSender sender, OfflinePlayer target, String reason, UUID issuerId) {
-        if (!target.isOnline()) {
+    private void handleKick(CommandSender sender, PlayerProfile target, String reason, UUID issuerId) {
+        if (plugin.getServer().getPlayer(target.getUniqueId()) == null) {
             sender.sendMessage(config.getMessage("player-not-online"));
             return;
         }
@@ -285,46 +371,35 @@ public class PunishmentCommand implements CommandExecutor, TabCompleter {
         sendSuccessMessage(sender, "kick", target, reason, null);
     }
 
-    private void handleHistory(CommandSender sender, OfflinePlayer target) {
+    private void handleHistory(CommandSender sender, PlayerProfile target) {
         if (!(sender instanceof Player)) {
             sender.sendMessage(config.getMessage("player-only-command"));
             return;
         }
 
-        new HistoryGUI(plugin).openGUI((Player) sender, target);
+        plugin.getHistoryGUI().openGUI((Player) sender, target);
     }
 
-    private void sendSuccessMessage(CommandSender sender, String command, OfflinePlayer target, String reason, Long duration) {
-        Map<String, String> placeholders = new HashMap<>();
-        placeholders.put("player", target.getName());
-        if (reason != null) placeholders.put("reason", reason);
-        if (duration != null) placeholders.put("duration", formatDuration(duration));
-        sender.sendMessage(config.getMessage("command." + command + ".success", placeholders));
+    private void sendSuccessMessage(CommandSender sender, String command, PlayerProfile target, String reason, Long duration) {
+        sender.sendMessage(config.getMessage("command." + command + ".success", placeholder -> switch (placeholder) {
+            case PLAYER -> target.getName();
+            case REASON -> reason;
+            case DURATION -> duration != null ? DurationFormat.format(duration) : null;
+            default -> null;
+        }));
     }
 
-    private String formatDuration(long seconds) {
-        if (seconds < 60) return seconds + "s";
-        if (seconds < 3600) return (seconds / 60) + "m";
-        if (seconds < 86400) return (seconds / 3600) + "h";
-        if (seconds < 604800) return (seconds / 86400) + "d";
-        return (seconds / 604800) + "w";
+    private String ipBanMessage(String reason, UUID issuerId) {
+        return config.getMessage("ipban-message", placeholder -> switch (placeholder) {
+            case REASON -> reason;
+            case DURATION -> "Permanent";
+            case ISSUER -> issuerName(issuerId);
+            default -> null;
+        });
     }
 
-    private long parseDuration(String input) {
-        try {
-            long amount = Long.parseLong(input.substring(0, input.length() - 1));
-            char unit = input.charAt(input.length() - 1);
-            return switch (Character.toLowerCase(unit)) {
-                case 's' -> amount;
-                case 'm' -> amount * 60;
-                case 'h' -> amount * 3600;
-                case 'd' -> amount * 86400;
-                case 'w' -> amount * 604800;
-                default -> -1;
-            };
-        } catch (Exception e) {
-            return -1;
-        }
+    private String issuerName(UUID issuerId) {
+        return plugin.getPlayerDirectory().getIssuerName(issuerId);
     }
 
     private boolean hasPermission(CommandSender sender, String command) {
@@ -365,18 +440,10 @@ public class PunishmentCommand implements CommandExecutor, TabCompleter {
             }
             case "unban", "unmute" -> {
                 if (args.length == 1) {
-                    String partial = args[0].toLowerCase();
-                    Set<String> bannedPlayers = new HashSet<>();
                     PunishmentType type = cmd.getName().equals("unban") ? PunishmentType.BAN : PunishmentType.MUTE;
 
-                    // Get all active punishments of the specific type
-                    plugin.getPunishmentManager().getAllPunishments().stream()
-                            .filter(p -> p.getType() == type && p.isActive() && !p.isExpired())
-                            .map(p -> plugin.getServer().getOfflinePlayer(p.getTargetId()).getName())
-                            .filter(name -> name != null && name.toLowerCase().startsWith(partial))
-                            .forEach(bannedPlayers::add);
-
-                    return new ArrayList<>(bannedPlayers);
+                    // Served from the maintained index of active punishment names
+                    return plugin.getPunishmentManager().completeActiveNames(type, args[0], COMPLETION_LIMIT);
                 }
             }
             case "history" -> {
@@ -1,54 +1,63 @@
 package com.brekfst.simplepunishments.config;
 
 import com.brekfst.simplepunishments.SimplePunishments;
-import org.bukkit.ChatColor;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 public class ConfigManager {
     private final SimplePunishments plugin;
     private FileConfiguration config;
-    private final String cachedPrefix;
+    // Replaced as a whole on reload, so readers on any thread see either the old set or the new one
+    private volatile Map<String, MessageTemplate> messages = Collections.emptyMap();
 
     public ConfigManager(SimplePunishments plugin) {
         this.plugin = plugin;
         loadConfig();
-        this.cachedPrefix = config.getString("messages.prefix", "&7[&bSimplePunishments&7]&r ");
     }
 
     private void loadConfig() {
         plugin.saveDefaultConfig();
         plugin.reloadConfig();
         config = plugin.getConfig();
+        messages = compileMessages();
     }
 
-    public String getMessage(String path) {
-        return getMessage(path, new HashMap<>());
+    public void reload() {
+        loadConfig();
     }
 
-    public String getMessage(String path, Map<String, String> placeholders) {
-        String fullPath = "messages." + path;
-        String message = config.getString(fullPath);
+    private Map<String, MessageTemplate> compileMessages() {
+        Map<String, MessageTemplate> compiled = new HashMap<>();
+        ConfigurationSection section = config.getConfigurationSection("messages");
+        if (section == null) {
+            return compiled;
+        }
 
-        // If message is null, return a default error message
-        if (message == null) {
-            return "Missing configuration for: " + path;
+        String prefix = section.getString("prefix", "&7[&bSimplePunishments&7]&r ");
+        for (String path : section.getKeys(true)) {
+            if (section.isString(path)) {
+                compiled.put(path, MessageTemplate.compile(section.getString(path), prefix));
+            }
         }
+        return compiled;
+    }
 
-        // Replace prefix first
-        String replaced = message.replace("%prefix%", cachedPrefix);
+    public String getMessage(String path) {
+        return getMessage(path, Placeholders.NONE);
+    }
 
-        // Then replace all other placeholders
-        for (Map.Entry<String, String> entry : placeholders.entrySet()) {
-            String value = entry.getValue();
-            if (value != null) {
-                replaced = replaced.replace("%" + entry.getKey() + "%", value);
-            }
+    public String getMessage(String path, Placeholders placeholders) {
+        MessageTemplate template = messages.get(path);
+
+        // If message is null, return a default error message
+        if (template == null) {
+            return "Missing configuration for: " + path;
         }
 
-        // Convert color codes
-        return ChatColor.translateAlternateColorCodes('&', replaced);
+        return template.render(placeholders);
     }
-}
\ No newline at end of file
+}
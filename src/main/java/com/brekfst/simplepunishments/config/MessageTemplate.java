@@ -0,0 +1,85 @@
+package com.brekfst.simplepunishments.config;
+
+import org.bukkit.ChatColor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// A message split into colour-translated literal segments and placeholder slots, so rendering is
+// one pass of appends instead of a replace() per placeholder
+public final class MessageTemplate {
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    // literals[i] precedes slots[i]; the last literal follows the last slot
+    private final String[] literals;
+    private final Placeholder[] slots;
+
+    private MessageTemplate(String[] literals, Placeholder[] slots) {
+        this.literals = literals;
+        this.slots = slots;
+    }
+
+    // %prefix% is inlined here since it is part of the config, not of the call
+    public static MessageTemplate compile(String raw, String prefix) {
+        List<String> literals = new ArrayList<>();
+        List<Placeholder> slots = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+
+        int index = 0;
+        while (index < raw.length()) {
+            int open = raw.indexOf('%', index);
+            int close = open >= 0 ? raw.indexOf('%', open + 1) : -1;
+            if (close < 0) {
+                literal.append(raw, index, raw.length());
+                break;
+            }
+
+            String key = raw.substring(open + 1, close);
+            Placeholder placeholder = Placeholder.fromKey(key);
+            if (placeholder != null) {
+                literal.append(raw, index, open);
+                literals.add(translate(literal.toString()));
+                slots.add(placeholder);
+                literal.setLength(0);
+                index = close + 1;
+            } else if (key.equals("prefix")) {
+                literal.append(raw, index, open).append(prefix);
+                index = close + 1;
+            } else {
+                // Unknown name: keep the first '%' as text and retry from the second, which may open a real slot
+                literal.append(raw, index, close);
+                index = close;
+            }
+        }
+        literals.add(translate(literal.toString()));
+
+        return new MessageTemplate(literals.toArray(new String[0]), slots.toArray(new Placeholder[0]));
+    }
+
+    public String render(Placeholders placeholders) {
+        if (slots.length == 0) {
+            return literals[0];
+        }
+
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        for (int i = 0; i < slots.length; i++) {
+            out.append(literals[i]);
+            String value = placeholders.resolve(slots[i]);
+            if (value == null) {
+                out.append('%').append(slots[i].getKey()).append('%');
+            } else if (value.indexOf('&') >= 0) {
+                // Values such as reasons may carry their own colour codes
+                out.append(translate(value));
+            } else {
+                out.append(value);
+            }
+        }
+        out.append(literals[slots.length]);
+        return out.toString();
+    }
+
+    private static String translate(String text) {
+        return ChatColor.translateAlternateColorCodes('&', text);
+    }
+}
@@ -0,0 +1,47 @@
+package com.brekfst.simplepunishments.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Every %name% a message may contain; templates resolve names to these once, at compile time
+public enum Placeholder {
+    PLAYER("player"),
+    REASON("reason"),
+    DURATION("duration"),
+    EXPIRES("expires"),
+    TIME_LEFT("time-left"),
+    ISSUER("issuer"),
+    IP("ip"),
+    STATUS("status"),
+    DATE("date"),
+    TOTAL("total"),
+    METRIC("metric"),
+    VALUE("value"),
+    FILE("file"),
+    READ("read"),
+    IMPORTED("imported"),
+    SKIPPED("skipped"),
+    UNKNOWN("unknown");
+
+    private static final Map<String, Placeholder> BY_KEY = new HashMap<>();
+
+    static {
+        for (Placeholder placeholder : values()) {
+            BY_KEY.put(placeholder.key, placeholder);
+        }
+    }
+
+    private final String key;
+
+    Placeholder(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public static Placeholder fromKey(String key) {
+        return BY_KEY.get(key);
+    }
+}
@@ -0,0 +1,14 @@
+package com.brekfst.simplepunishments.config;
+
+// Supplies placeholder values while a template renders; only the slots a message uses are asked for.
+// Returning null leaves the placeholder text in the message untouched.
+@FunctionalInterface
+public interface Placeholders {
+    Placeholders NONE = placeholder -> null;
+
+    String resolve(Placeholder placeholder);
+
+    static Placeholders player(String player) {
+        return placeholder -> placeholder == Placeholder.PLAYER ? player : null;
+    }
+}
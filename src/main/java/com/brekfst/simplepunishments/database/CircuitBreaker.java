@@ -0,0 +1,143 @@
+package com.brekfst.simplepunishments.database;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+// Stops sending reads to a database that keeps failing or timing out. CLOSED tracks the outcome of the last
+// `window` reads and opens once enough of them failed; OPEN rejects every read until openMillis have passed;
+// HALF_OPEN then lets `probes` reads through and closes if all succeed, or opens again on the first failure.
+final class CircuitBreaker {
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final Logger logger;
+    private final boolean enabled;
+    private final int minimumCalls;
+    private final int failureRate;
+    private final long openNanos;
+    private final int probes;
+
+    // Ring of recent outcomes in CLOSED, true for a failure
+    private final boolean[] outcomes;
+    private int next;
+    private int recorded;
+    private int failed;
+
+    private State state = State.CLOSED;
+    // Bumped on every transition, so a read that started in an earlier state cannot count towards this one
+    private long generation;
+    private long openedAt;
+    private int probesStarted;
+    private int probesSucceeded;
+
+    private final LongAdder trips = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    CircuitBreaker(Logger logger, boolean enabled, int window, int minimumCalls, int failureRate, long openMillis, int probes) {
+        this.logger = logger;
+        this.enabled = enabled;
+        this.outcomes = new boolean[Math.max(1, window)];
+        this.minimumCalls = Math.max(1, Math.min(outcomes.length, minimumCalls));
+        this.failureRate = Math.max(1, Math.min(100, failureRate));
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, openMillis));
+        this.probes = Math.max(1, probes);
+    }
+
+    // A permit to pass to onSuccess or onFailure, or -1 when the read must not be attempted
+    synchronized long tryAcquire() {
+        if (!enabled) return generation;
+
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                rejected.increment();
+                return -1;
+            }
+            transition(State.HALF_OPEN);
+            probesStarted = 0;
+            probesSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesStarted >= probes) {
+                rejected.increment();
+                return -1;
+            }
+            probesStarted++;
+        }
+        return generation;
+    }
+
+    synchronized void onSuccess(long permit) {
+        if (!enabled || permit != generation) return;
+
+        if (state == State.HALF_OPEN) {
+            if (++probesSucceeded >= probes) {
+                transition(State.CLOSED);
+                logger.info("Database reads are succeeding again; circuit breaker closed");
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    synchronized void onFailure(long permit) {
+        if (!enabled || permit != generation) return;
+
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+        }
+    }
+
+    synchronized State getState() {
+        // Reported as half-open once the wait is over, even if no read has come along to probe yet
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    long getTrips() {
+        return trips.sum();
+    }
+
+    long getRejected() {
+        return rejected.sum();
+    }
+
+    private void open() {
+        transition(State.OPEN);
+        openedAt = System.nanoTime();
+        trips.increment();
+        logger.warning("Database reads are failing; circuit breaker open for "
+                + TimeUnit.NANOSECONDS.toMillis(openNanos) + " ms, answering from memory meanwhile");
+    }
+
+    private void transition(State to) {
+        state = to;
+        generation++;
+        if (to == State.CLOSED) {
+            next = 0;
+            recorded = 0;
+            failed = 0;
+        }
+    }
+
+    private void record(boolean failure) {
+        if (recorded == outcomes.length) {
+            if (outcomes[next]) failed--;
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failure;
+        if (failure) failed++;
+        next = (next + 1) % outcomes.length;
+
+        // Checked on successes too, since the window may only now have reached minimumCalls
+        if (recorded >= minimumCalls && failed * 100 >= failureRate * recorded) {
+            open();
+        }
+    }
+}
@@ -1,25 +1,97 @@
 package com.brekfst.simplepunishments.database;
 
+import com.brekfst.simplepunishments.punishments.HistoryPage;
 import com.brekfst.simplepunishments.punishments.Punishment;
+import com.brekfst.simplepunishments.punishments.PunishmentFilter;
 import com.brekfst.simplepunishments.punishments.PunishmentType;
 import com.brekfst.simplepunishments.SimplePunishments;
-import com.mongodb.MongoException;
-import com.mongodb.client.*;
-import org.bson.Document;
+import com.brekfst.simplepunishments.metrics.LatencyHistogram;
+import com.brekfst.simplepunishments.metrics.Metrics;
+import com.brekfst.simplepunishments.players.PlayerProfile;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.io.File;
+import java.io.IOException;
 import java.sql.*;
+import java.time.Instant;
 import java.util.*;
-import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 public class DatabaseManager {
-    private Connection sqlConnection;
-    private MongoClient mongoClient;
-    private MongoDatabase mongoDb;
+    // Statements shared with the benchmarks module, so what it measures is what ships
+    public static final String INSERT_PUNISHMENT = "INSERT INTO punishments "
+            + "(id, target_id, type, reason, issuer_id, created_at, duration, active, ip, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    public static final String LOAD_PLAYER_PUNISHMENTS = "SELECT * FROM punishments WHERE target_id = ?";
+    public static final String LOAD_FIRST_HISTORY_PAGE =
+            "SELECT * FROM punishments WHERE target_id = ? ORDER BY created_at DESC, id DESC LIMIT ?";
+
+    // MySQL shares one pool for reads and writes; SQLite gets a single writer and a reader pool
+    private HikariDataSource writePool;
+    private HikariDataSource readPool;
+    private MongoBackend mongo;
+    private PunishmentWriter writer;
+    private PunishmentJournal journal;
+    private ThreadPoolExecutor readExecutor;
     private final SimplePunishments plugin;
     private final String dbType;
 
+    private final LatencyHistogram loadActiveTimer;
+    private final LatencyHistogram loadPlayerTimer;
+    private final LatencyHistogram historyPageTimer;
+    private final LatencyHistogram historyCountTimer;
+    private final LatencyHistogram loadIpBanTimer;
+    private final LatencyHistogram writeBatchTimer;
+    private final LatencyHistogram playerQueryTimer;
+    private final LatencyHistogram importBatchTimer;
+    private final LatencyHistogram exportTimer;
+
+    // Reads are bounded by a deadline and skipped altogether while the breaker is open
+    private final CircuitBreaker breaker;
+    private final long lookupTimeout;
+    private final long bulkTimeout;
+    private final LongAdder readTimeouts;
+
     public DatabaseManager(SimplePunishments plugin) {
         this.plugin = plugin;
         this.dbType = plugin.getConfig().getString("database.type", "SQLITE");
+
+        Metrics metrics = plugin.getMetrics();
+        this.loadActiveTimer = metrics.timer("db_load_active");
+        this.loadPlayerTimer = metrics.timer("db_load_player");
+        this.historyPageTimer = metrics.timer("db_history_page");
+        this.historyCountTimer = metrics.timer("db_history_count");
+        this.loadIpBanTimer = metrics.timer("db_load_ip_ban");
+        this.writeBatchTimer = metrics.timer("db_write_batch");
+        this.playerQueryTimer = metrics.timer("db_player_query");
+        this.importBatchTimer = metrics.timer("db_import_batch");
+        this.exportTimer = metrics.timer("db_export_scan");
+
+        this.breaker = new CircuitBreaker(plugin.getLogger(),
+                plugin.getConfig().getBoolean("database.breaker.enabled", true),
+                plugin.getConfig().getInt("database.breaker.window", 20),
+                plugin.getConfig().getInt("database.breaker.minimum-calls", 10),
+                plugin.getConfig().getInt("database.breaker.failure-rate", 50),
+                plugin.getConfig().getLong("database.breaker.open-duration", 10) * 1000,
+                plugin.getConfig().getInt("database.breaker.half-open-probes", 3));
+        this.lookupTimeout = Math.max(1, plugin.getConfig().getLong("database.breaker.timeouts.lookup", 500));
+        this.bulkTimeout = Math.max(1, plugin.getConfig().getLong("database.breaker.timeouts.bulk", 60000));
+        this.readTimeouts = metrics.counter("db_read_timeouts_total");
+        // 0 closed, 1 open, 2 half-open
+        metrics.gauge("db_breaker_state", () -> breaker.getState().ordinal());
+        metrics.counter("db_breaker_trips_total", breaker::getTrips);
+        metrics.counter("db_reads_rejected_total", breaker::getRejected);
         setupDatabase();
     }
 
@@ -36,6 +108,7 @@ public class DatabaseManager {
                     setupSQLite();
             }
             createTables();
+            startWriter();
         } catch (Exception e) {
             plugin.getLogger().severe("Failed to setup database: " + e.getMessage());
             plugin.getServer().getPluginManager().disablePlugin(plugin);
@@ -50,294 +123,901 @@ public class DatabaseManager {
         String password = plugin.getConfig().getString("database.mysql.password");
         String url = String.format("jdbc:mysql://%s:%d/%s", host, port, database);
 
+        HikariConfig config = createPoolConfig("SimplePunishments-MySQL", url);
+        config.setUsername(username);
+        config.setPassword(password);
+
+        // Let Connector/J cache server-side prepared statements per pooled connection
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("prepStmtCacheSize", "250");
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        config.addDataSourceProperty("useServerPrepStmts", "true");
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
+        config.addDataSourceProperty("tcpKeepAlive", "true");
+
         try {
-            sqlConnection = DriverManager.getConnection(url, username, password);
-        } catch (SQLException e) {
+            writePool = new HikariDataSource(config);
+            readPool = writePool;
+            startReadExecutor(writePool.getMaximumPoolSize());
+        } catch (RuntimeException e) {
             throw new RuntimeException("Failed to connect to MySQL", e);
         }
     }
 
     private void setupSQLite() {
+        String url = "jdbc:sqlite:" + sqliteFile().getPath();
+        ConfigurationSection pool = plugin.getConfig().getConfigurationSection("database.pool");
+        int readers = pool != null ? pool.getInt("sqlite-readers", 4) : 4;
+
         try {
-            String path = plugin.getDataFolder() + "/database.db";
-            sqlConnection = DriverManager.getConnection("jdbc:sqlite:" + path);
-        } catch (SQLException e) {
+            // SQLite allows one writer at a time; WAL lets readers proceed alongside it
+            HikariConfig writerConfig = createPoolConfig("SimplePunishments-SQLite-Writer", url);
+            applySqlitePragmas(writerConfig);
+            writerConfig.setMinimumIdle(1);
+            writerConfig.setMaximumPoolSize(1);
+            writePool = new HikariDataSource(writerConfig);
+
+            HikariConfig readerConfig = createPoolConfig("SimplePunishments-SQLite-Reader", url);
+            applySqlitePragmas(readerConfig);
+            readerConfig.setMinimumIdle(1);
+            readerConfig.setMaximumPoolSize(Math.max(1, readers));
+            readPool = new HikariDataSource(readerConfig);
+            startReadExecutor(readPool.getMaximumPoolSize());
+        } catch (RuntimeException e) {
             throw new RuntimeException("Failed to connect to SQLite", e);
         }
     }
 
+    private HikariConfig createPoolConfig(String poolName, String url) {
+        ConfigurationSection pool = plugin.getConfig().getConfigurationSection("database.pool");
+
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        config.setJdbcUrl(url);
+        config.setMinimumIdle(pool != null ? pool.getInt("minimum-idle", 2) : 2);
+        config.setMaximumPoolSize(pool != null ? pool.getInt("maximum-size", 10) : 10);
+        config.setConnectionTimeout(pool != null ? pool.getLong("connection-timeout", 5000) : 5000);
+        config.setValidationTimeout(pool != null ? pool.getLong("validation-timeout", 3000) : 3000);
+        config.setIdleTimeout(pool != null ? pool.getLong("idle-timeout", 600000) : 600000);
+        // Retiring connections before MySQL's wait_timeout and pinging idle ones avoids handing out dead sockets
+        config.setMaxLifetime(pool != null ? pool.getLong("max-lifetime", 1800000) : 1800000);
+        config.setKeepaliveTime(pool != null ? pool.getLong("keepalive-time", 300000) : 300000);
+        config.setLeakDetectionThreshold(pool != null ? pool.getLong("leak-detection-threshold", 10000) : 10000);
+        return config;
+    }
+
+    // One thread per pooled read connection. The queue is bounded, so once a hung database has tied up every
+    // thread, further reads fail straight away instead of piling up behind it.
+    private void startReadExecutor(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        readExecutor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, plugin.getConfig().getInt("database.breaker.max-queued-reads", 256))),
+                task -> {
+                    Thread thread = new Thread(task, "SimplePunishments-Read-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    private void applySqlitePragmas(HikariConfig config) {
+        config.addDataSourceProperty("journal_mode", "WAL");
+        config.addDataSourceProperty("synchronous", "NORMAL");
+        config.addDataSourceProperty("busy_timeout", "5000");
+        config.addDataSourceProperty("foreign_keys", "true");
+    }
+
+    private Connection getConnection() throws SQLException {
+        return writePool.getConnection();
+    }
+
+    private Connection getReadConnection() throws SQLException {
+        return readPool.getConnection();
+    }
+
     private void setupMongoDB() {
-        String uri = plugin.getConfig().getString("database.mongodb.uri");
-        String database = plugin.getConfig().getString("database.mongodb.database");
-        mongoClient = MongoClients.create(uri);
-        mongoDb = mongoClient.getDatabase(database);
+        mongo = new MongoBackend(plugin);
+    }
+
+    // Identifies the database without credentials, so a snapshot is never restored against another one
+    public String describeSource() {
+        return switch (dbType.toUpperCase()) {
+            case "MYSQL" -> "mysql://" + plugin.getConfig().getString("database.mysql.host") + ":"
+                    + plugin.getConfig().getInt("database.mysql.port") + "/" + plugin.getConfig().getString("database.mysql.database");
+            case "MONGODB" -> "mongodb:" + Integer.toHexString(String.valueOf(plugin.getConfig().getString("database.mongodb.uri")).hashCode())
+                    + "/" + plugin.getConfig().getString("database.mongodb.database");
+            default -> "sqlite:" + sqliteFile().getAbsolutePath();
+        };
+    }
+
+    private File sqliteFile() {
+        return new File(plugin.getDataFolder(), "database.db");
+    }
+
+    private void startWriter() {
+        journal = openJournal();
+        if (journal != null && journal.getBacklog() > 0) {
+            // Before anything reads the database, so writes from the last run are visible to the warm-up
+            try {
+                journal.replay(plugin.getConfig().getInt("database.writer.batch-size", 500), this::replayBatch);
+            } catch (Exception e) {
+                plugin.getLogger().severe("Failed to replay the journal, retrying in the background: " + e.getMessage());
+            }
+        }
+
+        writer = new PunishmentWriter(this, plugin.getLogger(), journal,
+                plugin.getConfig().getLong("database.journal.retry-interval", 5) * 1000,
+                plugin.getConfig().getInt("database.journal.max-retries", 5),
+                plugin.getConfig().getInt("database.writer.queue-capacity", 10000),
+                plugin.getConfig().getInt("database.writer.batch-size", 500),
+                plugin.getConfig().getLong("database.writer.enqueue-timeout", 1000));
+
+        Metrics metrics = plugin.getMetrics();
+        metrics.gauge("writer_queue_depth", writer::getQueueDepth);
+        metrics.gauge("writer_queue_high_water", writer::getHighWaterMark);
+        metrics.counter("writer_written_total", writer::getWritten);
+        metrics.counter("writer_coalesced_total", writer::getCoalesced);
+        metrics.counter("writer_batches_total", writer::getBatches);
+        metrics.counter("writer_failures_total", writer::getFailures);
+        metrics.counter("writer_sync_fallbacks_total", writer::getSyncFallbacks);
+        if (journal != null) {
+            PunishmentJournal journal = this.journal;
+            metrics.gauge("journal_backlog", journal::getBacklog);
+            metrics.gauge("journal_segments", journal::getSegmentCount);
+            metrics.counter("journal_fsyncs_total", journal::getFsyncs);
+            metrics.counter("journal_replayed_total", journal::getReplayed);
+            metrics.counter("journal_dead_lettered_total", journal::getDeadLettered);
+            metrics.counter("writer_journal_only_total", writer::getJournalOnly);
+        }
+    }
+
+    private PunishmentJournal openJournal() {
+        if (!plugin.getConfig().getBoolean("database.journal.enabled", true)) return null;
+        try {
+            return new PunishmentJournal(plugin, new File(plugin.getDataFolder(), "journal"),
+                    plugin.getConfig().getLong("database.journal.segment-size", 16) * 1024 * 1024);
+        } catch (IOException e) {
+            plugin.getLogger().severe("Failed to open the journal, writes go straight to the database: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Journal replay: records may already be in the database, so inserts skip existing rows
+    void replayBatch(List<Punishment> inserts, List<Punishment> updates) throws Exception {
+        if (!inserts.isEmpty()) {
+            importBatch(inserts, Map.of());
+        }
+        if (!updates.isEmpty()) {
+            writeBatch(List.of(), updates);
+        }
     }
 
     private void createTables() {
-        if (dbType.equalsIgnoreCase("MONGODB")) return;
-
-        try (Statement stmt = sqlConnection.createStatement()) {
-            stmt.execute("""
-            CREATE TABLE IF NOT EXISTS punishments (
-                id VARCHAR(36) PRIMARY KEY,
-                target_id VARCHAR(36) NOT NULL,
-                type VARCHAR(20) NOT NULL,
-                reason TEXT,
-                issuer_id VARCHAR(36),
-                created_at TIMESTAMP NOT NULL,
-                duration BIGINT,
-                active BOOLEAN DEFAULT TRUE,
-                ip VARCHAR(45)
-            )
-        """);
+        SchemaMigrator migrator = new SchemaMigrator(plugin.getLogger());
+        if (dbType.equalsIgnoreCase("MONGODB")) {
+            migrator.migrate(mongo.getDatabase());
+            return;
+        }
+
+        try (Connection conn = getConnection()) {
+            migrator.migrate(conn);
         } catch (SQLException e) {
             throw new RuntimeException("Failed to create tables", e);
         }
     }
 
     public void savePunishment(Punishment punishment) {
-        if (dbType.equalsIgnoreCase("MONGODB")) {
-            saveMongoDocument(punishment);
-        } else {
-            saveSqlPunishment(punishment);
-        }
-    }
-
-    private void saveSqlPunishment(Punishment punishment) {
-        String sql = """
-        INSERT INTO punishments (id, target_id, type, reason, issuer_id, created_at, duration, active, ip)
-        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
-    """;
-
-        try (PreparedStatement pstmt = sqlConnection.prepareStatement(sql)) {
-            pstmt.setString(1, punishment.getId().toString());
-            pstmt.setString(2, punishment.getTargetId().toString());
-            pstmt.setString(3, punishment.getType().toString());
-            pstmt.setString(4, punishment.getReason());
-            pstmt.setString(5, punishment.getIssuerId().toString());
-            pstmt.setTimestamp(6, Timestamp.from(punishment.getCreatedAt()));
-            pstmt.setLong(7, punishment.getDuration() != null ? punishment.getDuration() : -1);
-            pstmt.setBoolean(8, true);
-            pstmt.setString(9, punishment.getBannedIP());
-            pstmt.executeUpdate();
-        } catch (SQLException e) {
-            plugin.getLogger().severe("Failed to save punishment: " + e.getMessage());
+        writer.enqueueInsert(punishment);
+    }
+
+    public void updatePunishment(Punishment punishment) {
+        writer.enqueueUpdate(punishment);
+    }
+
+    // Called from the writer thread with already coalesced operations
+    void writeBatch(List<Punishment> inserts, List<Punishment> updates) throws Exception {
+        long start = System.nanoTime();
+        try {
+            if (dbType.equalsIgnoreCase("MONGODB")) {
+                join(mongo.writeBatch(inserts, updates));
+            } else {
+                writeSqlBatch(inserts, updates);
+            }
+        } finally {
+            writeBatchTimer.recordSince(start);
         }
     }
 
-    private void saveMongoDocument(Punishment punishment) {
-        Document doc = new Document()
-                .append("_id", punishment.getId().toString())
-                .append("targetId", punishment.getTargetId().toString())
-                .append("type", punishment.getType().toString())
-                .append("reason", punishment.getReason())
-                .append("issuerId", punishment.getIssuerId().toString())
-                .append("createdAt", Date.from(punishment.getCreatedAt()))
-                .append("duration", punishment.getDuration())
-                .append("active", true)
-                .append("ip", punishment.getBannedIP());
+    private void writeSqlBatch(List<Punishment> inserts, List<Punishment> updates) throws SQLException {
+        String updateSql = "UPDATE punishments SET active = ?, updated_at = ? WHERE id = ?";
+        // Stamped on every write so a restart can catch up on just the rows changed since its snapshot
+        Timestamp now = new Timestamp(System.currentTimeMillis());
 
-        mongoDb.getCollection("punishments").insertOne(doc);
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                if (!inserts.isEmpty()) {
+                    try (PreparedStatement pstmt = conn.prepareStatement(INSERT_PUNISHMENT)) {
+                        for (Punishment punishment : inserts) {
+                            bindInsert(pstmt, punishment, now);
+                            pstmt.addBatch();
+                        }
+                        pstmt.executeBatch();
+                    }
+                }
+
+                if (!updates.isEmpty()) {
+                    try (PreparedStatement pstmt = conn.prepareStatement(updateSql)) {
+                        for (Punishment punishment : updates) {
+                            pstmt.setBoolean(1, punishment.isActive());
+                            pstmt.setTimestamp(2, now);
+                            pstmt.setString(3, punishment.getId().toString());
+                            pstmt.addBatch();
+                        }
+                        pstmt.executeBatch();
+                    }
+                }
+
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
     }
 
-    public List<Punishment> loadPunishments() {
-        return dbType.equalsIgnoreCase("MONGODB") ? loadMongoPunishments() : loadSqlPunishments();
+    // Bulk path for /sp import: one transaction per batch, rows that already exist (same ID) are left alone.
+    // Runs on the import thread and bypasses the writer so the caller knows when a batch is durable.
+    // Returns the IDs actually inserted, so rows that were already stored (perhaps lifted since) stay as they are.
+    public Set<UUID> importBatch(List<Punishment> punishments, Map<UUID, String> players) throws Exception {
+        long start = System.nanoTime();
+        try {
+            return dbType.equalsIgnoreCase("MONGODB")
+                    ? join(mongo.importBatch(punishments, players))
+                    : importSqlBatch(punishments, players);
+        } finally {
+            importBatchTimer.recordSince(start);
+        }
     }
 
-    private List<Punishment> loadSqlPunishments() {
-        List<Punishment> punishments = new ArrayList<>();
-        String sql = "SELECT * FROM punishments WHERE active = TRUE";
-
-        try (Statement stmt = sqlConnection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-
-                punishments.add(new Punishment(
-                        plugin,
-                        UUID.fromString(rs.getString("id")),
-                        UUID.fromString(rs.getString("target_id")),
-                        PunishmentType.valueOf(rs.getString("type")),
-                        rs.getString("reason"),
-                        UUID.fromString(rs.getString("issuer_id")),
-                        rs.getTimestamp("created_at").toInstant(),
-                        rs.getLong("duration"),
-                        rs.getString("ip"),
-                        rs.getBoolean("active")
-                ));
+    private Set<UUID> importSqlBatch(List<Punishment> punishments, Map<UUID, String> players) throws SQLException {
+        String insertSql = INSERT_PUNISHMENT.replaceFirst("INSERT", dbType.equalsIgnoreCase("MYSQL") ? "INSERT IGNORE" : "INSERT OR IGNORE");
+
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // Batched update counts cannot be trusted for this: rewritten MySQL batches report
+                // SUCCESS_NO_INFO, so the rows already present are looked up first and left out
+                Set<UUID> inserted = new HashSet<>();
+                Set<UUID> existing = queryExistingIds(conn, punishments);
+                List<Punishment> missing = new ArrayList<>(punishments.size());
+                for (Punishment punishment : punishments) {
+                    if (!existing.contains(punishment.getId())) missing.add(punishment);
+                }
+
+                if (!missing.isEmpty()) {
+                    try (PreparedStatement pstmt = conn.prepareStatement(insertSql)) {
+                        for (Punishment punishment : missing) {
+                            bindInsert(pstmt, punishment, now);
+                            pstmt.addBatch();
+                        }
+                        int[] counts = pstmt.executeBatch();
+                        for (int i = 0; i < counts.length; i++) {
+                            // A row another server inserted since the lookup still reports 0 here
+                            if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) inserted.add(missing.get(i).getId());
+                        }
+                    }
+                }
+
+                if (!players.isEmpty()) {
+                    try (PreparedStatement pstmt = conn.prepareStatement(playerUpsertSql())) {
+                        for (Map.Entry<UUID, String> player : players.entrySet()) {
+                            pstmt.setString(1, player.getKey().toString());
+                            pstmt.setString(2, player.getValue());
+                            pstmt.setString(3, player.getValue().toLowerCase(Locale.ROOT));
+                            pstmt.setTimestamp(4, now);
+                            pstmt.addBatch();
+                        }
+                        pstmt.executeBatch();
+                    }
+                }
+
+                conn.commit();
+                return inserted;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
-        } catch (SQLException e) {
-            plugin.getLogger().severe("Failed to load SQL punishments: " + e.getMessage());
         }
-        return punishments;
     }
 
-    private List<Punishment> loadMongoPunishments() {
-        List<Punishment> punishments = new ArrayList<>();
-        MongoCollection<Document> collection = mongoDb.getCollection("punishments");
+    // Binds INSERT_PUNISHMENT; updated_at is stamped so a restart can catch up on just the rows changed since
+    public static void bindInsert(PreparedStatement pstmt, Punishment punishment, Timestamp now) throws SQLException {
+        pstmt.setString(1, punishment.getId().toString());
+        pstmt.setString(2, punishment.getTargetId().toString());
+        pstmt.setString(3, punishment.getType().toString());
+        pstmt.setString(4, punishment.getReason());
+        pstmt.setString(5, punishment.getIssuerId() != null ? punishment.getIssuerId().toString() : null);
+        pstmt.setTimestamp(6, Timestamp.from(punishment.getCreatedAt()));
+        pstmt.setLong(7, punishment.getDuration() != null ? punishment.getDuration() : -1);
+        pstmt.setBoolean(8, punishment.isActive());
+        pstmt.setString(9, punishment.getBannedIP());
+        pstmt.setTimestamp(10, now);
+    }
+
+    private Set<UUID> queryExistingIds(Connection conn, List<Punishment> punishments) throws SQLException {
+        Set<UUID> existing = new HashSet<>();
+        for (int start = 0; start < punishments.size(); start += 500) {
+            List<Punishment> chunk = punishments.subList(start, Math.min(punishments.size(), start + 500));
+            String sql = "SELECT id FROM punishments WHERE id IN (" + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstmt.setString(i + 1, chunk.get(i).getId().toString());
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        existing.add(UUID.fromString(rs.getString("id")));
+                    }
+                }
+            }
+        }
+        return existing;
+    }
+
+    // Writes new punishments in one transaction on the calling thread, for callers that must know they are stored
+    public void saveAll(List<Punishment> punishments) throws Exception {
+        if (punishments.isEmpty()) return;
+        writeBatch(punishments, List.of());
+    }
+
+    public void shutdownWriter() {
+        // A writer thread still running may append to the journal, so it is left open; its records replay next start
+        boolean stopped = writer == null || writer.shutdown(plugin.getConfig().getLong("database.writer.shutdown-timeout", 30000));
+        if (journal != null && stopped) {
+            journal.close();
+        }
+    }
+
+    public PunishmentWriter getWriter() {
+        return writer;
+    }
+
+    // Active rows whose target_id sorts in [fromTarget, toTarget); a null bound is open. Ranges over the
+    // target index let the startup warm-up read disjoint slices on several connections at once. Failures
+    // throw, so a slice is never silently reported as loaded.
+    public List<Punishment> loadPunishments(String fromTarget, String toTarget) {
+        return result(read(loadActiveTimer, bulkTimeout, "Failed to load active punishments", () -> dbType.equalsIgnoreCase("MONGODB")
+                ? mongo.loadActive(fromTarget, toTarget)
+                : sql(() -> loadSqlPunishments(fromTarget, toTarget))));
+    }
+
+    interface SqlQuery<T> {
+        T run() throws SQLException;
+    }
 
-        for (Document doc : collection.find(new Document("active", true))) {
+    // SQL reads run on the read pool rather than the caller, so the caller can stop waiting at its deadline
+    // while JDBC is still blocked
+    private <T> CompletableFuture<T> sql(SqlQuery<T> query) {
+        return CompletableFuture.supplyAsync(() -> {
             try {
+                return query.run();
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, readExecutor);
+    }
 
-                punishments.add(new Punishment(
-                        plugin,
-                        UUID.fromString(doc.getString("_id")),
-                        UUID.fromString(doc.getString("targetId")),
-                        PunishmentType.valueOf(doc.getString("type")),
-                        doc.getString("reason"),
-                        UUID.fromString(doc.getString("issuerId")),
-                        doc.getDate("createdAt").toInstant(),
-                        doc.getLong("duration"),
-                        doc.getString("ip"),
-                        doc.getBoolean("active", true)
-                ));
-            } catch (Exception e) {
-                plugin.getLogger().severe("Failed to load MongoDB punishment: " + e.getMessage());
-                e.printStackTrace();
+    // Every read passes the breaker and completes within its deadline, exceptionally with a
+    // DatabaseUnavailableException when it was rejected, timed out or failed. Rejections are not logged,
+    // so an open breaker does not flood the console.
+    private <T> CompletableFuture<T> read(LatencyHistogram timer, long deadlineMillis, String failure,
+                                          Supplier<CompletableFuture<T>> query) {
+        long permit = breaker.tryAcquire();
+        if (permit < 0) {
+            return CompletableFuture.failedFuture(new DatabaseUnavailableException("circuit breaker open"));
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = query.get();
+        } catch (RejectedExecutionException e) {
+            future = CompletableFuture.failedFuture(new SQLException("too many reads waiting for the database"));
+        }
+        return future.orTimeout(deadlineMillis, TimeUnit.MILLISECONDS).handle((value, error) -> {
+            timer.recordSince(start);
+            if (error == null) {
+                breaker.onSuccess(permit);
+                return value;
             }
+
+            breaker.onFailure(permit);
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            String reason = cause.getMessage();
+            if (cause instanceof TimeoutException) {
+                readTimeouts.increment();
+                reason = "timed out after " + deadlineMillis + " ms";
+            }
+            plugin.getLogger().severe(failure + ": " + reason);
+            throw new DatabaseUnavailableException(reason, cause);
+        });
+    }
+
+    // Blocks for at most the read's deadline, for callers that must tell a failed read from an empty one
+    private static <T> T result(CompletableFuture<T> read) {
+        try {
+            return read.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof DatabaseUnavailableException ? (DatabaseUnavailableException) e.getCause() : e;
         }
-        return punishments;
     }
 
-    public void closeConnection() {
+    // For reads whose callers keep their usual empty answer when the database is unavailable
+    private static <T> T resultOr(CompletableFuture<T> read, T fallback) {
+        return read.exceptionally(e -> fallback).join();
+    }
+
+    // The sync API blocks on the Mongo futures; writes log and carry on like the SQL paths
+    private <T> T await(CompletableFuture<T> future, T fallback, String failure) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            plugin.getLogger().severe(failure + ": " + message(e));
+            return fallback;
+        }
+    }
+
+    private static String message(Throwable error) {
+        return (error instanceof CompletionException && error.getCause() != null ? error.getCause() : error).getMessage();
+    }
+
+    private static <T> T join(CompletableFuture<T> future) throws Exception {
         try {
-            if (sqlConnection != null && !sqlConnection.isClosed()) {
-                sqlConnection.close();
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    // Every row written since the given time, active or not, for catching a restored snapshot up.
+    // Rows from before updated_at existed have it NULL and are older than any snapshot anyway.
+    public List<Punishment> loadChangedSince(Instant since) {
+        return result(read(loadActiveTimer, bulkTimeout, "Failed to load changed punishments", () -> dbType.equalsIgnoreCase("MONGODB")
+                ? mongo.loadChangedSince(since)
+                : sql(() -> loadSqlChangedSince(since))));
+    }
+
+    private List<Punishment> loadSqlChangedSince(Instant since) throws SQLException {
+        List<Punishment> punishments = new ArrayList<>();
+        try (Connection conn = getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT * FROM punishments WHERE updated_at >= ?")) {
+            pstmt.setTimestamp(1, Timestamp.from(since));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    punishments.add(readSqlPunishment(rs));
+                }
             }
-            if (mongoClient != null) {
-                mongoClient.close();
+        }
+        return punishments;
+    }
+
+    private List<Punishment> loadSqlPunishments(String fromTarget, String toTarget) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT * FROM punishments WHERE active = TRUE");
+        if (fromTarget != null) sql.append(" AND target_id >= ?");
+        if (toTarget != null) sql.append(" AND target_id < ?");
+
+        List<Punishment> punishments = new ArrayList<>();
+        try (Connection conn = getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+            int parameter = 1;
+            if (fromTarget != null) pstmt.setString(parameter++, fromTarget);
+            if (toTarget != null) pstmt.setString(parameter, toTarget);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    punishments.add(readSqlPunishment(rs));
+                }
             }
-        } catch (SQLException e) {
-            plugin.getLogger().severe("Error closing database connection: " + e.getMessage());
         }
+        return punishments;
     }
 
-    public void updatePunishment(Punishment punishment) {
-        if (plugin.getConfig().getString("database.type", "SQLITE").equalsIgnoreCase("MONGODB")) {
-            updateMongoDocument(punishment);
-        } else {
-            updateSqlPunishment(punishment);
+    public void closeConnection() {
+        if (readExecutor != null) {
+            readExecutor.shutdownNow();
+        }
+        if (readPool != null && readPool != writePool) {
+            readPool.close();
+        }
+        if (writePool != null) {
+            writePool.close();
+        }
+        if (mongo != null) {
+            mongo.close();
         }
     }
 
+    // Throws DatabaseUnavailableException rather than returning an empty list, so a login is never let
+    // through on a lookup that did not happen
     public List<Punishment> loadPlayerPunishments(UUID targetId) {
+        return result(read(loadPlayerTimer, lookupTimeout, "Failed to load punishments", () -> dbType.equalsIgnoreCase("MONGODB")
+                ? mongo.loadPlayerPunishments(targetId)
+                : sql(() -> queryPlayerPunishments(targetId))));
+    }
+
+    private List<Punishment> queryPlayerPunishments(UUID targetId) throws SQLException {
+        List<Punishment> punishments = new ArrayList<>();
+        try (Connection conn = getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(LOAD_PLAYER_PUNISHMENTS)) {
+            pstmt.setString(1, targetId.toString());
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    punishments.add(readSqlPunishment(rs));
+                }
+            }
+        }
+
+        return punishments;
+    }
+
+    // Keyset pagination on (created_at, id): newest first, stable while new rows are added, no OFFSET scan
+    public HistoryPage loadPlayerPunishmentPage(UUID targetId, Punishment after, int limit) {
+        return resultOr(readPage(targetId, after, limit), new HistoryPage(List.of(), false));
+    }
+
+    // Mongo answers on the driver's threads and SQL on the read pool, so neither holds up the caller
+    public CompletableFuture<HistoryPage> loadPlayerPunishmentPageAsync(UUID targetId, Punishment after, int limit) {
+        return readPage(targetId, after, limit).exceptionally(e -> new HistoryPage(List.of(), false));
+    }
+
+    private CompletableFuture<HistoryPage> readPage(UUID targetId, Punishment after, int limit) {
+        return read(historyPageTimer, lookupTimeout, "Failed to load punishment history", () -> dbType.equalsIgnoreCase("MONGODB")
+                ? mongo.loadPage(targetId, after, limit)
+                : sql(() -> queryPlayerPunishmentPage(targetId, after, limit)));
+    }
+
+    private HistoryPage queryPlayerPunishmentPage(UUID targetId, Punishment after, int limit) throws SQLException {
+        String sql = after == null
+                ? LOAD_FIRST_HISTORY_PAGE
+                : "SELECT * FROM punishments WHERE target_id = ? AND (created_at < ? OR (created_at = ? AND id < ?)) "
+                + "ORDER BY created_at DESC, id DESC LIMIT ?";
         List<Punishment> punishments = new ArrayList<>();
-        String sql = "SELECT * FROM punishments WHERE target_id = ?";
 
-        try (PreparedStatement pstmt = sqlConnection.prepareStatement(sql)) {
+        try (Connection conn = getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, targetId.toString());
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                boolean active = rs.getBoolean("active");
-
-                Punishment punishment = new Punishment(
-                        plugin,
-                        UUID.fromString(rs.getString("id")),
-                        UUID.fromString(rs.getString("target_id")),
-                        PunishmentType.valueOf(rs.getString("type")),
-                        rs.getString("reason"),
-                        UUID.fromString(rs.getString("issuer_id")),
-                        rs.getTimestamp("created_at").toInstant(),
-                        rs.getLong("duration"),
-                        rs.getString("ip"),
-                        active  // Pass active status from database
-                );
-                punishments.add(punishment);
+            if (after == null) {
+                pstmt.setInt(2, limit + 1);
+            } else {
+                Timestamp createdAt = Timestamp.from(after.getCreatedAt());
+                pstmt.setTimestamp(2, createdAt);
+                pstmt.setTimestamp(3, createdAt);
+                pstmt.setString(4, after.getId().toString());
+                pstmt.setInt(5, limit + 1);
             }
-        } catch (SQLException e) {
-            plugin.getLogger().severe("Failed to load punishments: " + e.getMessage());
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    punishments.add(readSqlPunishment(rs));
+                }
+            }
+        }
+
+        // One extra row was fetched only to learn whether another page exists
+        boolean hasNext = punishments.size() > limit;
+        return new HistoryPage(hasNext ? punishments.subList(0, limit) : punishments, hasNext);
+    }
+
+    public int countPlayerPunishments(UUID targetId) {
+        return resultOr(readCount(targetId), 0);
+    }
+
+    public CompletableFuture<Integer> countPlayerPunishmentsAsync(UUID targetId) {
+        return readCount(targetId).exceptionally(e -> 0);
+    }
+
+    private CompletableFuture<Integer> readCount(UUID targetId) {
+        return read(historyCountTimer, lookupTimeout, "Failed to count punishments", () -> dbType.equalsIgnoreCase("MONGODB")
+                ? mongo.count(targetId)
+                : sql(() -> queryPlayerPunishmentCount(targetId)));
+    }
+
+    private int queryPlayerPunishmentCount(UUID targetId) throws SQLException {
+        try (Connection conn = getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT COUNT(*) FROM punishments WHERE target_id = ?")) {
+            pstmt.setString(1, targetId.toString());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    private Punishment readSqlPunishment(ResultSet rs) throws SQLException {
+        return new Punishment(
+                plugin,
+                UUID.fromString(rs.getString("id")),
+                UUID.fromString(rs.getString("target_id")),
+                PunishmentType.valueOf(rs.getString("type")),
+                rs.getString("reason"),
+                parseUuid(rs.getString("issuer_id")),
+                rs.getTimestamp("created_at").toInstant(),
+                rs.getLong("duration"),
+                rs.getString("ip"),
+                rs.getBoolean("active")
+        );
+    }
+
+    // Receives rows one at a time from streamPunishments
+    public interface RowHandler {
+        void accept(Punishment punishment) throws Exception;
+    }
+
+    // Forward-only scan of every matching row, handed over one at a time so memory does not grow with the
+    // table. No ORDER BY: sorting the full history would make the server buffer it instead.
+    // The one read outside the breaker: an export runs for minutes on its own thread, so a deadline does not
+    // fit, and its failures may come from the output file rather than the database.
+    public long streamPunishments(PunishmentFilter filter, RowHandler handler) throws Exception {
+        long start = System.nanoTime();
+        try {
+            return dbType.equalsIgnoreCase("MONGODB")
+                    ? mongo.stream(filter, exportFetchSize(), handler)
+                    : streamSqlPunishments(filter, handler);
+        } finally {
+            exportTimer.recordSince(start);
+        }
+    }
+
+    private long streamSqlPunishments(PunishmentFilter filter, RowHandler handler) throws Exception {
+        StringBuilder sql = new StringBuilder(
+                "SELECT id, target_id, type, reason, issuer_id, created_at, duration, active, ip FROM punishments WHERE 1 = 1");
+        List<Object> parameters = new ArrayList<>();
+        if (filter.getFrom() != null) {
+            sql.append(" AND created_at >= ?");
+            parameters.add(Timestamp.from(filter.getFrom()));
         }
+        if (filter.getTo() != null) {
+            sql.append(" AND created_at < ?");
+            parameters.add(Timestamp.from(filter.getTo()));
+        }
+        if (!filter.getTypes().isEmpty()) {
+            sql.append(" AND type IN (").append(String.join(", ", Collections.nCopies(filter.getTypes().size(), "?"))).append(")");
+            for (PunishmentType type : filter.getTypes()) {
+                parameters.add(type.toString());
+            }
+        }
+        if (filter.isByIssuer()) {
+            if (filter.getIssuerId() != null) {
+                sql.append(" AND issuer_id = ?");
+                parameters.add(filter.getIssuerId().toString());
+            } else {
+                sql.append(" AND issuer_id IS NULL");
+            }
+        }
+
+        long rows = 0;
+        try (Connection conn = getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // Connector/J only streams row by row with MIN_VALUE; any other size reads the whole result first
+            pstmt.setFetchSize(dbType.equalsIgnoreCase("MYSQL") ? Integer.MIN_VALUE : exportFetchSize());
+            for (int i = 0; i < parameters.size(); i++) {
+                pstmt.setObject(i + 1, parameters.get(i));
+            }
 
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    handler.accept(readSqlPunishment(rs));
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+
+    private int exportFetchSize() {
+        return Math.max(1, plugin.getConfig().getInt("export.fetch-size", 1000));
+    }
+
+    // Active rows for many players in a few IN queries, for batch commands that must not query per player
+    public List<Punishment> loadActivePunishments(Collection<UUID> targetIds) {
+        return result(read(loadPlayerTimer, bulkTimeout, "Failed to load active punishments", () -> dbType.equalsIgnoreCase("MONGODB")
+                ? mongo.loadActivePunishments(targetIds)
+                : sql(() -> queryActivePunishments(targetIds))));
+    }
+
+    private List<Punishment> queryActivePunishments(Collection<UUID> targetIds) throws SQLException {
+        List<Punishment> punishments = new ArrayList<>();
+        List<String> ids = new ArrayList<>(targetIds.size());
+        for (UUID targetId : targetIds) {
+            ids.add(targetId.toString());
+        }
+
+        for (int start = 0; start < ids.size(); start += 500) {
+            List<String> chunk = ids.subList(start, Math.min(ids.size(), start + 500));
+            String sql = "SELECT * FROM punishments WHERE active = TRUE AND target_id IN ("
+                    + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+            try (Connection conn = getReadConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstmt.setString(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        punishments.add(readSqlPunishment(rs));
+                    }
+                }
+            }
+        }
         return punishments;
     }
 
+    // Throws DatabaseUnavailableException like loadPlayerPunishments; null means there is no such ban
     public Punishment loadIPBan(String ip) {
-        if (dbType.equalsIgnoreCase("MONGODB")) {
-            return loadIPBanMongo(ip);
-        }
+        return result(read(loadIpBanTimer, lookupTimeout, "Failed to load IP ban", () -> dbType.equalsIgnoreCase("MONGODB")
+                ? mongo.loadIPBan(ip)
+                : sql(() -> queryIPBan(ip))));
+    }
 
+    private Punishment queryIPBan(String ip) throws SQLException {
         String sql = "SELECT * FROM punishments WHERE ip = ? AND active = TRUE";
 
-        try (PreparedStatement pstmt = sqlConnection.prepareStatement(sql)) {
+        try (Connection conn = getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, ip);
-            ResultSet rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                return new Punishment(
-                        plugin,
-                        UUID.fromString(rs.getString("id")),
-                        UUID.fromString(rs.getString("target_id")),
-                        PunishmentType.valueOf(rs.getString("type")),
-                        rs.getString("reason"),
-                        UUID.fromString(rs.getString("issuer_id")),
-                        rs.getTimestamp("created_at").toInstant(),
-                        rs.getLong("duration"),
-                        rs.getString("ip"), true
-                );
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return readSqlPunishment(rs);
+                }
             }
-        } catch (SQLException e) {
-            plugin.getLogger().severe("Failed to load IP ban: " + e.getMessage());
         }
         return null;
     }
 
-    public Punishment loadIPBanMongo(String ip) {
-        MongoCollection<Document> collection = mongoDb.getCollection("punishments");
-        Document filter = new Document()
-                .append("ip", ip)
-                .append("active", true)
-                .append("type", PunishmentType.IP_BAN.toString());
-
-        Document doc = collection.find(filter).first();
-        if (doc != null) {
-            try {
-                return new Punishment(
-                        plugin,
-                        UUID.fromString(doc.getString("_id")),
-                        UUID.fromString(doc.getString("targetId")),
-                        PunishmentType.valueOf(doc.getString("type")),
-                        doc.getString("reason"),
-                        UUID.fromString(doc.getString("issuerId")),
-                        doc.getDate("createdAt").toInstant(),
-                        doc.getLong("duration"),
-                        doc.getString("ip"), true
-                );
-            } catch (Exception e) {
-                plugin.getLogger().severe("Failed to load IP ban from MongoDB: " + e.getMessage());
-            }
+    public void savePlayer(UUID playerId, String name) {
+        long start = System.nanoTime();
+        try {
+            upsertPlayer(playerId, name);
+        } finally {
+            playerQueryTimer.recordSince(start);
         }
-        return null;
     }
 
-    private void updateSqlPunishment(Punishment punishment) {
-        String sql = """
-            UPDATE punishments 
-            SET active = ? 
-            WHERE id = ?
-        """;
+    private void upsertPlayer(UUID playerId, String name) {
+        if (dbType.equalsIgnoreCase("MONGODB")) {
+            await(mongo.savePlayer(playerId, name), null, "Failed to save player");
+            return;
+        }
 
-        try (PreparedStatement pstmt = sqlConnection.prepareStatement(sql)) {
-            pstmt.setBoolean(1, punishment.isActive());
-            pstmt.setString(2, punishment.getId().toString());
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(playerUpsertSql())) {
+            pstmt.setString(1, playerId.toString());
+            pstmt.setString(2, name);
+            pstmt.setString(3, name.toLowerCase(Locale.ROOT));
+            pstmt.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
             pstmt.executeUpdate();
         } catch (SQLException e) {
-            plugin.getLogger().severe("Failed to update punishment: " + e.getMessage());
+            plugin.getLogger().severe("Failed to save player: " + e.getMessage());
         }
     }
 
-    private void updateMongoDocument(Punishment punishment) {
-        MongoCollection<Document> collection = mongoDb.getCollection("punishments");
+    private String playerUpsertSql() {
+        return dbType.equalsIgnoreCase("MYSQL")
+                ? "INSERT INTO players (id, name, name_lower, last_seen) VALUES (?, ?, ?, ?) " +
+                  "ON DUPLICATE KEY UPDATE name = VALUES(name), name_lower = VALUES(name_lower), last_seen = VALUES(last_seen)"
+                : "INSERT INTO players (id, name, name_lower, last_seen) VALUES (?, ?, ?, ?) " +
+                  "ON CONFLICT(id) DO UPDATE SET name = excluded.name, name_lower = excluded.name_lower, last_seen = excluded.last_seen";
+    }
 
-        Document filter = new Document("_id", punishment.getId().toString());
-        Document update = new Document("$set", new Document()
-                .append("active", punishment.isActive())
-                .append("ip", punishment.getBannedIP()));
+    public String loadPlayerName(UUID playerId) {
+        return resultOr(read(playerQueryTimer, lookupTimeout, "Failed to load player name", () -> dbType.equalsIgnoreCase("MONGODB")
+                ? mongo.loadPlayerName(playerId)
+                : sql(() -> queryPlayerName(playerId))), null);
+    }
 
-        try {
-            collection.updateOne(filter, update);
-        } catch (MongoException e) {
-            plugin.getLogger().severe("Failed to update punishment in MongoDB: " + e.getMessage());
+    private String queryPlayerName(UUID playerId) throws SQLException {
+        try (Connection conn = getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT name FROM players WHERE id = ?")) {
+            pstmt.setString(1, playerId.toString());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getString("name") : null;
+            }
+        }
+    }
+
+    public Map<UUID, String> loadPlayerNames(Collection<UUID> playerIds) {
+        return resultOr(read(playerQueryTimer, bulkTimeout, "Failed to load player names", () -> dbType.equalsIgnoreCase("MONGODB")
+                ? mongo.loadPlayerNames(playerIds)
+                : sql(() -> queryPlayerNames(playerIds))), new HashMap<>());
+    }
+
+    private Map<UUID, String> queryPlayerNames(Collection<UUID> playerIds) throws SQLException {
+        Map<UUID, String> names = new HashMap<>();
+        List<String> ids = new ArrayList<>(playerIds.size());
+        for (UUID playerId : playerIds) {
+            ids.add(playerId.toString());
         }
+
+        // Chunked to stay under driver and SQLite parameter limits
+        for (int start = 0; start < ids.size(); start += 500) {
+            List<String> chunk = ids.subList(start, Math.min(ids.size(), start + 500));
+            String sql = "SELECT id, name FROM players WHERE id IN (" + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+            try (Connection conn = getReadConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstmt.setString(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        names.put(UUID.fromString(rs.getString("id")), rs.getString("name"));
+                    }
+                }
+            }
+        }
+        return names;
+    }
+
+    // Keyed by lower-case name; rows are read oldest first so the most recently seen holder of a name wins
+    public Map<String, PlayerProfile> loadPlayerProfiles(Collection<String> playerNames) {
+        return resultOr(read(playerQueryTimer, bulkTimeout, "Failed to load player ids", () -> dbType.equalsIgnoreCase("MONGODB")
+                ? mongo.loadPlayerProfiles(playerNames)
+                : sql(() -> queryPlayerProfiles(playerNames))), new HashMap<>());
+    }
+
+    private Map<String, PlayerProfile> queryPlayerProfiles(Collection<String> playerNames) throws SQLException {
+        Map<String, PlayerProfile> profiles = new HashMap<>();
+        List<String> names = new ArrayList<>(playerNames.size());
+        for (String name : playerNames) {
+            names.add(name.toLowerCase(Locale.ROOT));
+        }
+
+        for (int offset = 0; offset < names.size(); offset += 500) {
+            List<String> chunk = names.subList(offset, Math.min(names.size(), offset + 500));
+            String sql = "SELECT id, name, name_lower FROM players WHERE name_lower IN ("
+                    + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ") ORDER BY last_seen";
+            try (Connection conn = getReadConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstmt.setString(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        profiles.put(rs.getString("name_lower"),
+                                new PlayerProfile(UUID.fromString(rs.getString("id")), rs.getString("name")));
+                    }
+                }
+            }
+        }
+        return profiles;
+    }
+
+    // Names get reused after a rename, so the most recently seen holder wins
+    public UUID loadPlayerId(String name) {
+        return resultOr(read(playerQueryTimer, lookupTimeout, "Failed to load player id", () -> dbType.equalsIgnoreCase("MONGODB")
+                ? mongo.loadPlayerId(name)
+                : sql(() -> queryPlayerId(name))), null);
+    }
+
+    private UUID queryPlayerId(String name) throws SQLException {
+        String nameLower = name.toLowerCase(Locale.ROOT);
+
+        try (Connection conn = getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                     "SELECT id FROM players WHERE name_lower = ? ORDER BY last_seen DESC LIMIT 1")) {
+            pstmt.setString(1, nameLower);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? UUID.fromString(rs.getString("id")) : null;
+            }
+        }
+    }
+
+    // Console-issued punishments have no issuer
+    private static UUID parseUuid(String value) {
+        return value != null ? UUID.fromString(value) : null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,13 @@
+package com.brekfst.simplepunishments.database;
+
+// A read was rejected by the circuit breaker, ran past its deadline or failed, so its answer is unknown.
+// Thrown by the reads whose callers must tell "nothing found" apart from "could not look".
+public class DatabaseUnavailableException extends RuntimeException {
+    public DatabaseUnavailableException(String message) {
+        super(message);
+    }
+
+    public DatabaseUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
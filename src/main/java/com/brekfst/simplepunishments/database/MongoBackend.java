@@ -0,0 +1,356 @@
+package com.brekfst.simplepunishments.database;
+
+import com.brekfst.simplepunishments.SimplePunishments;
+import com.brekfst.simplepunishments.players.PlayerProfile;
+import com.brekfst.simplepunishments.punishments.HistoryPage;
+import com.brekfst.simplepunishments.punishments.Punishment;
+import com.brekfst.simplepunishments.punishments.PunishmentFilter;
+import com.brekfst.simplepunishments.punishments.PunishmentType;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.mongodb.reactivestreams.client.MongoDatabase;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+// MongoDB access on the reactive-streams driver. Nothing here blocks: every call returns a future completed
+// on the driver's threads, so concurrent lookups cost in-flight requests rather than pooled threads.
+public class MongoBackend {
+    private static final int DUPLICATE_KEY = 11000;
+    private static final int CHUNK_SIZE = 500;
+
+    // Only the fields a Punishment is built from, whatever else ends up stored in the documents
+    private static final Bson PUNISHMENT_FIELDS = Projections.include(
+            "_id", "targetId", "type", "reason", "issuerId", "createdAt", "duration", "active", "ip");
+
+    private final SimplePunishments plugin;
+    private final MongoClient client;
+    private final MongoDatabase database;
+    private final MongoCollection<Document> punishments;
+    private final MongoCollection<Document> players;
+    private final int batchSize;
+
+    public MongoBackend(SimplePunishments plugin) {
+        this.plugin = plugin;
+        this.client = MongoClients.create(plugin.getConfig().getString("database.mongodb.uri"));
+        this.database = client.getDatabase(plugin.getConfig().getString("database.mongodb.database"));
+        this.punishments = database.getCollection("punishments");
+        this.players = database.getCollection("players");
+        this.batchSize = Math.max(1, plugin.getConfig().getInt("database.mongodb.batch-size", 1000));
+    }
+
+    MongoDatabase getDatabase() {
+        return database;
+    }
+
+    public void close() {
+        client.close();
+    }
+
+    public CompletableFuture<Void> writeBatch(List<Punishment> inserts, List<Punishment> updates) {
+        List<WriteModel<Document>> writes = new ArrayList<>(inserts.size() + updates.size());
+        for (Punishment punishment : inserts) {
+            writes.add(new InsertOneModel<>(toDocument(punishment)));
+        }
+        for (Punishment punishment : updates) {
+            writes.add(new UpdateOneModel<>(
+                    Filters.eq("_id", punishment.getId().toString()),
+                    Updates.combine(
+                            Updates.set("active", punishment.isActive()),
+                            Updates.set("ip", punishment.getBannedIP()),
+                            Updates.set("updatedAt", new Date()))));
+        }
+
+        if (writes.isEmpty()) return CompletableFuture.completedFuture(null);
+        return Publishers.first(punishments.bulkWrite(writes, new BulkWriteOptions().ordered(true)))
+                .thenApply(result -> null);
+    }
+
+    // Unordered, so one duplicate does not stop the rest; rows that already exist are left out of the result
+    public CompletableFuture<Set<UUID>> importBatch(List<Punishment> imported, Map<UUID, String> names) {
+        CompletableFuture<Set<UUID>> inserted = CompletableFuture.completedFuture(Set.of());
+        if (!imported.isEmpty()) {
+            List<WriteModel<Document>> writes = new ArrayList<>(imported.size());
+            for (Punishment punishment : imported) {
+                writes.add(new InsertOneModel<>(toDocument(punishment)));
+            }
+            inserted = Publishers.first(punishments.bulkWrite(writes, new BulkWriteOptions().ordered(false)))
+                    .thenApply(result -> insertedIds(imported, Set.of()))
+                    .exceptionally(error -> {
+                        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                        if (!(cause instanceof MongoBulkWriteException)) throw new CompletionException(cause);
+                        Set<Integer> duplicates = new HashSet<>();
+                        for (BulkWriteError writeError : ((MongoBulkWriteException) cause).getWriteErrors()) {
+                            if (writeError.getCode() != DUPLICATE_KEY) throw new CompletionException(cause);
+                            duplicates.add(writeError.getIndex());
+                        }
+                        return insertedIds(imported, duplicates);
+                    });
+        }
+
+        if (names.isEmpty()) return inserted;
+        List<WriteModel<Document>> upserts = new ArrayList<>(names.size());
+        Date now = new Date();
+        for (Map.Entry<UUID, String> player : names.entrySet()) {
+            upserts.add(new UpdateOneModel<>(Filters.eq("_id", player.getKey().toString()),
+                    playerUpdate(player.getValue(), now), new UpdateOptions().upsert(true)));
+        }
+        CompletableFuture<?> savedNames = Publishers.first(players.bulkWrite(upserts, new BulkWriteOptions().ordered(false)));
+        return inserted.thenCombine(savedNames, (count, ignored) -> count);
+    }
+
+    private static Set<UUID> insertedIds(List<Punishment> imported, Set<Integer> skipped) {
+        Set<UUID> ids = new HashSet<>();
+        for (int i = 0; i < imported.size(); i++) {
+            if (!skipped.contains(i)) ids.add(imported.get(i).getId());
+        }
+        return ids;
+    }
+
+    // The active set is streamed in driver batches rather than pulled in one reply
+    public CompletableFuture<List<Punishment>> loadActive(String fromTarget, String toTarget) {
+        List<Bson> conditions = new ArrayList<>();
+        conditions.add(Filters.eq("active", true));
+        if (fromTarget != null) conditions.add(Filters.gte("targetId", fromTarget));
+        if (toTarget != null) conditions.add(Filters.lt("targetId", toTarget));
+        return readAll(Filters.and(conditions.toArray(new Bson[0])));
+    }
+
+    public CompletableFuture<List<Punishment>> loadChangedSince(Instant since) {
+        return readAll(Filters.gte("updatedAt", Date.from(since)));
+    }
+
+    public CompletableFuture<List<Punishment>> loadPlayerPunishments(UUID targetId) {
+        return readAll(Filters.eq("targetId", targetId.toString()));
+    }
+
+    public CompletableFuture<List<Punishment>> loadActivePunishments(Collection<UUID> targetIds) {
+        List<CompletableFuture<List<Punishment>>> chunks = new ArrayList<>();
+        for (List<String> chunk : chunks(targetIds)) {
+            chunks.add(readAll(Filters.and(Filters.in("targetId", chunk), Filters.eq("active", true))));
+        }
+        return allOf(chunks).thenApply(results -> {
+            List<Punishment> loaded = new ArrayList<>();
+            results.forEach(loaded::addAll);
+            return loaded;
+        });
+    }
+
+    public CompletableFuture<HistoryPage> loadPage(UUID targetId, Punishment after, int limit) {
+        Bson filter = Filters.eq("targetId", targetId.toString());
+        if (after != null) {
+            Date createdAt = Date.from(after.getCreatedAt());
+            filter = Filters.and(filter, Filters.or(
+                    Filters.lt("createdAt", createdAt),
+                    Filters.and(Filters.eq("createdAt", createdAt), Filters.lt("_id", after.getId().toString()))));
+        }
+
+        return Publishers.toList(punishments.find(filter)
+                        .projection(PUNISHMENT_FIELDS)
+                        .sort(Sorts.descending("createdAt", "_id"))
+                        .limit(limit + 1))
+                .thenApply(documents -> {
+                    List<Punishment> page = read(documents);
+                    boolean hasNext = page.size() > limit;
+                    return new HistoryPage(hasNext ? page.subList(0, limit) : page, hasNext);
+                });
+    }
+
+    public CompletableFuture<Integer> count(UUID targetId) {
+        return Publishers.first(punishments.countDocuments(Filters.eq("targetId", targetId.toString())))
+                .thenApply(count -> count != null ? count.intValue() : 0);
+    }
+
+    public CompletableFuture<Punishment> loadIPBan(String ip) {
+        Bson filter = Filters.and(
+                Filters.eq("ip", ip),
+                Filters.eq("active", true),
+                Filters.eq("type", PunishmentType.IP_BAN.toString()));
+        return Publishers.first(punishments.find(filter).projection(PUNISHMENT_FIELDS).first())
+                .thenApply(doc -> doc != null ? readPunishment(doc) : null);
+    }
+
+    public CompletableFuture<Void> savePlayer(UUID playerId, String name) {
+        return Publishers.first(players.updateOne(Filters.eq("_id", playerId.toString()),
+                        playerUpdate(name, new Date()), new UpdateOptions().upsert(true)))
+                .thenApply(result -> null);
+    }
+
+    public CompletableFuture<String> loadPlayerName(UUID playerId) {
+        return Publishers.first(players.find(Filters.eq("_id", playerId.toString()))
+                        .projection(Projections.include("name"))
+                        .first())
+                .thenApply(doc -> doc != null ? doc.getString("name") : null);
+    }
+
+    // Chunks are queried concurrently rather than one after another
+    public CompletableFuture<Map<UUID, String>> loadPlayerNames(Collection<UUID> playerIds) {
+        List<CompletableFuture<List<Document>>> chunks = new ArrayList<>();
+        for (List<String> chunk : chunks(playerIds)) {
+            chunks.add(Publishers.toList(players.find(Filters.in("_id", chunk))
+                    .projection(Projections.include("name"))
+                    .batchSize(batchSize)));
+        }
+        return allOf(chunks).thenApply(results -> {
+            Map<UUID, String> names = new HashMap<>();
+            for (List<Document> documents : results) {
+                for (Document doc : documents) {
+                    names.put(UUID.fromString(doc.getString("_id")), doc.getString("name"));
+                }
+            }
+            return names;
+        });
+    }
+
+    // Keyed by lower-case name; oldest first so the most recently seen holder of a name wins
+    public CompletableFuture<Map<String, PlayerProfile>> loadPlayerProfiles(Collection<String> names) {
+        List<String> lower = new ArrayList<>(names.size());
+        for (String name : names) {
+            lower.add(name.toLowerCase(Locale.ROOT));
+        }
+
+        List<CompletableFuture<List<Document>>> chunks = new ArrayList<>();
+        for (int start = 0; start < lower.size(); start += CHUNK_SIZE) {
+            List<String> chunk = lower.subList(start, Math.min(lower.size(), start + CHUNK_SIZE));
+            chunks.add(Publishers.toList(players.find(Filters.in("nameLower", chunk))
+                    .projection(Projections.include("name", "nameLower"))
+                    .sort(Sorts.ascending("lastSeen"))
+                    .batchSize(batchSize)));
+        }
+        return allOf(chunks).thenApply(results -> {
+            Map<String, PlayerProfile> profiles = new HashMap<>();
+            for (List<Document> documents : results) {
+                for (Document doc : documents) {
+                    profiles.put(doc.getString("nameLower"),
+                            new PlayerProfile(UUID.fromString(doc.getString("_id")), doc.getString("name")));
+                }
+            }
+            return profiles;
+        });
+    }
+
+    // Covered by idx_players_name_id: filter, sort and the returned _id all come from the index
+    public CompletableFuture<UUID> loadPlayerId(String name) {
+        return Publishers.first(players.find(Filters.eq("nameLower", name.toLowerCase(Locale.ROOT)))
+                        .projection(Projections.include("_id"))
+                        .sort(Sorts.descending("lastSeen"))
+                        .first())
+                .thenApply(doc -> doc != null ? UUID.fromString(doc.getString("_id")) : null);
+    }
+
+    // Blocks the calling (export) thread; documents arrive one driver batch at a time
+    public long stream(PunishmentFilter filter, int fetchSize, DatabaseManager.RowHandler handler) throws Exception {
+        List<Bson> conditions = new ArrayList<>();
+        if (filter.getFrom() != null) conditions.add(Filters.gte("createdAt", Date.from(filter.getFrom())));
+        if (filter.getTo() != null) conditions.add(Filters.lt("createdAt", Date.from(filter.getTo())));
+        if (!filter.getTypes().isEmpty()) {
+            List<String> types = new ArrayList<>();
+            for (PunishmentType type : filter.getTypes()) {
+                types.add(type.toString());
+            }
+            conditions.add(Filters.in("type", types));
+        }
+        if (filter.isByIssuer()) {
+            conditions.add(Filters.eq("issuerId", filter.getIssuerId() != null ? filter.getIssuerId().toString() : null));
+        }
+
+        Bson query = conditions.isEmpty() ? new Document() : Filters.and(conditions.toArray(new Bson[0]));
+        return Publishers.forEach(punishments.find(query).projection(PUNISHMENT_FIELDS).batchSize(fetchSize),
+                fetchSize, doc -> handler.accept(readPunishment(doc)));
+    }
+
+    private CompletableFuture<List<Punishment>> readAll(Bson filter) {
+        return Publishers.toList(punishments.find(filter).projection(PUNISHMENT_FIELDS).batchSize(batchSize))
+                .thenApply(this::read);
+    }
+
+    // A malformed document is logged and skipped rather than failing the whole read
+    private List<Punishment> read(List<Document> documents) {
+        List<Punishment> loaded = new ArrayList<>(documents.size());
+        for (Document doc : documents) {
+            try {
+                loaded.add(readPunishment(doc));
+            } catch (Exception e) {
+                plugin.getLogger().severe("Failed to load MongoDB punishment: " + e.getMessage());
+            }
+        }
+        return loaded;
+    }
+
+    private Punishment readPunishment(Document doc) {
+        String issuerId = doc.getString("issuerId");
+        return new Punishment(
+                plugin,
+                UUID.fromString(doc.getString("_id")),
+                UUID.fromString(doc.getString("targetId")),
+                PunishmentType.valueOf(doc.getString("type")),
+                doc.getString("reason"),
+                issuerId != null ? UUID.fromString(issuerId) : null,
+                doc.getDate("createdAt").toInstant(),
+                doc.getLong("duration"),
+                doc.getString("ip"),
+                doc.getBoolean("active", true)
+        );
+    }
+
+    private static Document toDocument(Punishment punishment) {
+        return new Document()
+                .append("_id", punishment.getId().toString())
+                .append("targetId", punishment.getTargetId().toString())
+                .append("type", punishment.getType().toString())
+                .append("reason", punishment.getReason())
+                .append("issuerId", punishment.getIssuerId() != null ? punishment.getIssuerId().toString() : null)
+                .append("createdAt", Date.from(punishment.getCreatedAt()))
+                .append("duration", punishment.getDuration())
+                .append("active", punishment.isActive())
+                .append("ip", punishment.getBannedIP())
+                .append("updatedAt", new Date());
+    }
+
+    private static Bson playerUpdate(String name, Date lastSeen) {
+        return Updates.combine(
+                Updates.set("name", name),
+                Updates.set("nameLower", name.toLowerCase(Locale.ROOT)),
+                Updates.set("lastSeen", lastSeen));
+    }
+
+    // Chunked to keep each $in reasonably small
+    private static List<List<String>> chunks(Collection<UUID> ids) {
+        List<String> values = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            values.add(id.toString());
+        }
+
+        List<List<String>> chunks = new ArrayList<>();
+        for (int start = 0; start < values.size(); start += CHUNK_SIZE) {
+            chunks.add(values.subList(start, Math.min(values.size(), start + CHUNK_SIZE)));
+        }
+        return chunks;
+    }
+
+    private static <T> CompletableFuture<List<T>> allOf(List<CompletableFuture<T>> futures) {
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            List<T> results = new ArrayList<>(futures.size());
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+            return results;
+        });
+    }
+}
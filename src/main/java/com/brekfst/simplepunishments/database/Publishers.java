@@ -0,0 +1,135 @@
+package com.brekfst.simplepunishments.database;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Adapts the reactive Mongo driver's publishers to CompletableFutures, and to a pull loop for long scans
+final class Publishers {
+    private static final Object END = new Object();
+
+    private Publishers() {
+    }
+
+    interface ItemHandler<T> {
+        void accept(T item) throws Exception;
+    }
+
+    // First item, or null when the publisher is empty
+    static <T> CompletableFuture<T> first(Publisher<T> publisher) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        publisher.subscribe(new Subscriber<T>() {
+            private Subscription subscription;
+
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(T item) {
+                if (future.complete(item)) {
+                    subscription.cancel();
+                }
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                future.completeExceptionally(error);
+            }
+
+            @Override
+            public void onComplete() {
+                future.complete(null);
+            }
+        });
+        return future;
+    }
+
+    static <T> CompletableFuture<List<T>> toList(Publisher<T> publisher) {
+        CompletableFuture<List<T>> future = new CompletableFuture<>();
+        publisher.subscribe(new Subscriber<T>() {
+            private final List<T> items = new ArrayList<>();
+
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(T item) {
+                items.add(item);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                future.completeExceptionally(error);
+            }
+
+            @Override
+            public void onComplete() {
+                future.complete(items);
+            }
+        });
+        return future;
+    }
+
+    // Blocks the calling thread and requests one batch at a time, so at most batchSize items are ever buffered
+    static <T> long forEach(Publisher<T> publisher, int batchSize, ItemHandler<T> handler) throws Exception {
+        BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+        AtomicReference<Subscription> subscription = new AtomicReference<>();
+        publisher.subscribe(new Subscriber<T>() {
+            @Override
+            public void onSubscribe(Subscription s) {
+                subscription.set(s);
+                s.request(batchSize);
+            }
+
+            @Override
+            public void onNext(T item) {
+                queue.add(item);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                queue.add(error);
+            }
+
+            @Override
+            public void onComplete() {
+                queue.add(END);
+            }
+        });
+
+        long count = 0;
+        try {
+            while (true) {
+                Object next = queue.take();
+                if (next == END) return count;
+                if (next instanceof Throwable) {
+                    Throwable error = (Throwable) next;
+                    throw error instanceof Exception ? (Exception) error : new RuntimeException(error);
+                }
+
+                @SuppressWarnings("unchecked")
+                T item = (T) next;
+                handler.accept(item);
+                if (++count % batchSize == 0) {
+                    subscription.get().request(batchSize);
+                }
+            }
+        } catch (Exception e) {
+            Subscription s = subscription.get();
+            if (s != null) s.cancel();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package com.brekfst.simplepunishments.database;
+
+import com.brekfst.simplepunishments.SimplePunishments;
+import com.brekfst.simplepunishments.punishments.Punishment;
+import com.brekfst.simplepunishments.punishments.PunishmentCodec;
+import com.brekfst.simplepunishments.punishments.PunishmentType;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+// Append-only log of every write handed to PunishmentWriter, fsynced before the caller continues, so a
+// punishment survives a database outage or a crash with writes still queued. Records carry a sequence
+// number; everything up to the applied mark is in the database, and segments wholly below it are deleted.
+// Replay is idempotent: inserts skip rows that exist and updates only ever deactivate.
+final class PunishmentJournal {
+    private static final int VERSION = 1;
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".log";
+    private static final String DEAD_LETTER = "dead-letter.log";
+
+    private final SimplePunishments plugin;
+    private final Logger logger;
+    private final File directory;
+    private final long segmentBytes;
+    // First sequence number of each segment file
+    private final TreeMap<Long, File> segments = new TreeMap<>();
+    private final Object syncLock = new Object();
+
+    private FileChannel channel;
+    private long nextSequence;
+    private volatile long applied;
+    private volatile long synced;
+
+    private final LongAdder fsyncs = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+
+    interface ReplayHandler {
+        void apply(List<Punishment> inserts, List<Punishment> updates) throws Exception;
+    }
+
+    // Returns false to stop reading
+    private interface RecordVisitor {
+        boolean visit(Record record) throws Exception;
+    }
+
+    PunishmentJournal(SimplePunishments plugin, File directory, long segmentBytes) throws IOException {
+        this.plugin = plugin;
+        this.logger = plugin.getLogger();
+        this.directory = directory;
+        this.segmentBytes = Math.max(64 * 1024, segmentBytes);
+        Files.createDirectories(directory.toPath());
+
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+        if (files != null) {
+            for (File file : files) {
+                String number = file.getName().substring(PREFIX.length(), file.getName().length() - SUFFIX.length());
+                try {
+                    segments.put(Long.parseLong(number), file);
+                } catch (NumberFormatException e) {
+                    logger.warning("Ignoring unexpected journal file " + file.getName());
+                }
+            }
+        }
+        recover();
+    }
+
+    // Finds where the log ends, cutting off a record torn by a crash. Nothing is known to be applied,
+    // so every surviving record counts as backlog until it has been replayed.
+    private void recover() throws IOException {
+        long first = -1;
+        long last = -1;
+        for (Map.Entry<Long, File> segment : segments.entrySet()) {
+            long expected = last >= 0 ? last + 1 : segment.getKey();
+            try (FileChannel in = FileChannel.open(segment.getValue().toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                SegmentReader reader = new SegmentReader(in);
+                Record record;
+                while ((record = reader.next()) != null) {
+                    if (record.sequence != expected) {
+                        throw new IOException("Journal " + segment.getValue().getName() + " skips from " + expected + " to " + record.sequence);
+                    }
+                    if (first < 0) first = record.sequence;
+                    last = record.sequence;
+                    expected++;
+                }
+                if (reader.position < in.size()) {
+                    logger.warning("Truncating torn record at the end of journal " + segment.getValue().getName());
+                    in.truncate(reader.position);
+                }
+            }
+        }
+
+        nextSequence = last >= 0 ? last + 1 : (segments.isEmpty() ? 0 : segments.lastKey());
+        applied = first >= 0 ? first - 1 : nextSequence - 1;
+        synced = nextSequence - 1;
+        openSegment();
+        if (first >= 0) {
+            logger.info("Journal holds " + (last - first + 1) + " writes from a previous run, replaying them");
+        }
+    }
+
+    private void openSegment() throws IOException {
+        File file = new File(directory, String.format("%s%020d%s", PREFIX, nextSequence, SUFFIX));
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segments.put(nextSequence, file);
+    }
+
+    // Written but not yet durable; follow with sync() before acknowledging
+    synchronized long append(Punishment punishment, boolean insert) throws IOException {
+        if (channel.size() >= segmentBytes) {
+            // Rolled segments are forced first, so a sync racing with the roll can treat them as durable
+            channel.force(false);
+            channel.close();
+            openSegment();
+        }
+
+        long sequence = nextSequence;
+        ByteBuffer record = encode(sequence, punishment, insert);
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        nextSequence++;
+        return sequence;
+    }
+
+    // Group commit: one fsync covers every record appended before it, so concurrent callers share it
+    void sync(long sequence) throws IOException {
+        if (synced >= sequence) return;
+        synchronized (syncLock) {
+            if (synced >= sequence) return;
+
+            long target;
+            FileChannel current;
+            synchronized (this) {
+                target = nextSequence - 1;
+                current = channel;
+            }
+            try {
+                current.force(false);
+                fsyncs.increment();
+            } catch (ClosedChannelException e) {
+                // Rolled meanwhile, and the roll forced it
+            }
+            synced = target;
+        }
+    }
+
+    long getApplied() {
+        return applied;
+    }
+
+    // Only advances when the range directly follows the applied mark; anything else is left to replay
+    synchronized void markApplied(long from, long to) {
+        if (from != applied + 1 || to < from) return;
+        applied = to;
+        compact();
+    }
+
+    // Replays everything past the applied mark that was written before this call, in order and in batches
+    void replay(int batchSize, ReplayHandler handler) throws Exception {
+        List<Record> batch = new ArrayList<>(batchSize);
+        forEachPending(record -> {
+            batch.add(record);
+            if (batch.size() >= batchSize) {
+                applyReplay(batch, handler);
+                batch.clear();
+            }
+            return true;
+        });
+        applyReplay(batch, handler);
+    }
+
+    // For a backlog whose first batch keeps failing: its records are written one at a time, and those the
+    // database rejects while others in the batch go through are moved to the dead-letter file. When every
+    // record fails the database itself is taken to be down and nothing is set aside.
+    void replayIsolated(int batchSize, ReplayHandler handler) throws Exception {
+        List<Record> batch = new ArrayList<>(batchSize);
+        forEachPending(record -> {
+            batch.add(record);
+            return batch.size() < batchSize;
+        });
+        if (batch.isEmpty()) return;
+
+        Map<Record, Exception> rejected = new LinkedHashMap<>();
+        for (Record record : batch) {
+            try {
+                handler.apply(record.insert ? List.of(record.punishment) : List.of(),
+                        record.insert ? List.of() : List.of(record.punishment));
+            } catch (Exception e) {
+                rejected.put(record, e);
+            }
+        }
+        if (rejected.size() == batch.size()) {
+            throw rejected.get(batch.get(0));
+        }
+
+        for (Map.Entry<Record, Exception> entry : rejected.entrySet()) {
+            deadLetter(entry.getKey(), entry.getValue());
+        }
+        replayed.add(batch.size() - rejected.size());
+        markApplied(batch.get(0).sequence, batch.get(batch.size() - 1).sequence);
+    }
+
+    // One readable line per record, kept beside the segments so an admin can fix and re-issue it by hand
+    private void deadLetter(Record record, Exception error) throws IOException {
+        Punishment punishment = record.punishment;
+        String line = Instant.now() + " sequence=" + record.sequence + " " + (record.insert ? "insert" : "update")
+                + " id=" + punishment.getId() + " target=" + punishment.getTargetId() + " type=" + punishment.getType()
+                + " active=" + punishment.isActive() + " created=" + punishment.getCreatedAt()
+                + " duration=" + punishment.getDuration() + " issuer=" + punishment.getIssuerId()
+                + " ip=" + punishment.getBannedIP() + " error=" + String.valueOf(error.getMessage()).replace('\n', ' ')
+                + " reason=" + String.valueOf(punishment.getReason()).replace('\n', ' ') + System.lineSeparator();
+        Files.writeString(new File(directory, DEAD_LETTER).toPath(), line, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        deadLettered.increment();
+        logger.severe("The database keeps rejecting journaled write " + record.sequence + " for punishment "
+                + punishment.getId() + ", moved it to " + DEAD_LETTER + ": " + error.getMessage());
+    }
+
+    // Every record past the applied mark that was written before this call, in order
+    private void forEachPending(RecordVisitor visitor) throws Exception {
+        long end;
+        List<File> files;
+        synchronized (this) {
+            end = nextSequence;
+            files = new ArrayList<>(segments.values());
+        }
+
+        for (File file : files) {
+            if (!file.exists()) continue;
+            try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                SegmentReader reader = new SegmentReader(in);
+                Record record;
+                while ((record = reader.next()) != null && record.sequence < end) {
+                    if (record.sequence <= applied) continue;
+                    if (!visitor.visit(record)) return;
+                }
+            }
+        }
+    }
+
+    private void applyReplay(List<Record> batch, ReplayHandler handler) throws Exception {
+        if (batch.isEmpty()) return;
+
+        // Within a batch every insert can go before every update: an update always follows its insert
+        List<Punishment> inserts = new ArrayList<>();
+        List<Punishment> updates = new ArrayList<>();
+        for (Record record : batch) {
+            (record.insert ? inserts : updates).add(record.punishment);
+        }
+        handler.apply(inserts, updates);
+        replayed.add(batch.size());
+        markApplied(batch.get(0).sequence, batch.get(batch.size() - 1).sequence);
+    }
+
+    // Segments whose records are all applied are no longer needed; the one being appended to stays
+    private void compact() {
+        while (segments.size() > 1) {
+            Map.Entry<Long, File> oldest = segments.firstEntry();
+            Long next = segments.higherKey(oldest.getKey());
+            if (next - 1 > applied) return;
+
+            if (!oldest.getValue().delete() && oldest.getValue().exists()) {
+                logger.warning("Failed to delete applied journal " + oldest.getValue().getName());
+                return;
+            }
+            segments.remove(oldest.getKey());
+        }
+    }
+
+    long getBacklog() {
+        return nextSequence - 1 - applied;
+    }
+
+    int getSegmentCount() {
+        return segments.size();
+    }
+
+    long getFsyncs() {
+        return fsyncs.sum();
+    }
+
+    long getReplayed() {
+        return replayed.sum();
+    }
+
+    long getDeadLettered() {
+        return deadLettered.sum();
+    }
+
+    // With nothing left to replay the whole journal is removed; otherwise it waits for the next start
+    synchronized void close() {
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            logger.warning("Failed to close the journal: " + e.getMessage());
+        }
+
+        if (getBacklog() > 0) {
+            logger.warning(getBacklog() + " writes stay in the journal and are replayed on the next start");
+            return;
+        }
+        for (File file : segments.values()) {
+            file.delete();
+        }
+        segments.clear();
+    }
+
+    // [length][crc32][payload]; the checksum exposes records torn by a crash
+    private static ByteBuffer encode(long sequence, Punishment punishment, boolean insert) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeLong(sequence);
+            out.writeBoolean(insert);
+            out.writeBoolean(punishment.isActive());
+            PunishmentCodec.write(out, punishment, null);
+        }
+
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(8 + payload.length);
+        record.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        return record;
+    }
+
+    private Record decode(byte[] payload) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(payload);
+        int version = in.get() & 0xFF;
+        if (version != VERSION) {
+            throw new IOException("Unsupported journal record version " + version);
+        }
+
+        try {
+            long sequence = in.getLong();
+            boolean insert = in.get() != 0;
+            boolean active = in.get() != 0;
+            return new Record(sequence, insert, PunishmentCodec.read(plugin, in, PunishmentType.values(), null, active));
+        } catch (RuntimeException e) {
+            // A truncated record or a bad ordinal that somehow passed the checksum
+            throw new IOException("Corrupt journal record: " + e, e);
+        }
+    }
+
+    // Reads records until the end of the segment or the first incomplete or damaged one
+    private final class SegmentReader {
+        private final DataInputStream in;
+        private final long size;
+        private long position;
+
+        private SegmentReader(FileChannel channel) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024));
+            this.size = channel.size();
+        }
+
+        private Record next() throws IOException {
+            if (size - position < 8) return null;
+            int length = in.readInt();
+            int checksum = in.readInt();
+            if (length <= 0 || length > size - position - 8) return null;
+
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) return null;
+
+            position += 8 + length;
+            return decode(payload);
+        }
+    }
+
+    private static final class Record {
+        private final long sequence;
+        private final boolean insert;
+        private final Punishment punishment;
+
+        private Record(long sequence, boolean insert, Punishment punishment) {
+            this.sequence = sequence;
+            this.insert = insert;
+            this.punishment = punishment;
+        }
+    }
+}
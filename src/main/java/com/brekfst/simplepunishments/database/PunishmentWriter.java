@@ -0,0 +1,377 @@
+package com.brekfst.simplepunishments.database;
+
+import com.brekfst.simplepunishments.punishments.Punishment;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+public class PunishmentWriter {
+    private static final Operation SHUTDOWN = new Operation(null, false, -1);
+
+    private final DatabaseManager database;
+    private final Logger logger;
+    // Null when journaling is off; then a failed batch is only logged
+    private final PunishmentJournal journal;
+    private final long retryMillis;
+    private final int maxRetries;
+    private final Object journalLock = new Object();
+    private long nextReplay;
+    private boolean outage;
+    private int failedReplays;
+    private final BlockingQueue<Operation> queue;
+    private final int batchSize;
+    private final long enqueueTimeoutMillis;
+    private final Thread thread;
+    private final Object flushLock = new Object();
+    private volatile boolean closed;
+
+    // Backpressure and throughput metrics
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicInteger highWaterMark = new AtomicInteger();
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder enqueueWaits = new LongAdder();
+    private final LongAdder syncFallbacks = new LongAdder();
+    private final LongAdder journalOnly = new LongAdder();
+
+    public PunishmentWriter(DatabaseManager database, Logger logger, PunishmentJournal journal, long retryMillis,
+                            int maxRetries, int capacity, int batchSize, long enqueueTimeoutMillis) {
+        this.database = database;
+        this.logger = logger;
+        this.journal = journal;
+        this.retryMillis = Math.max(100, retryMillis);
+        this.maxRetries = Math.max(1, maxRetries);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.enqueueTimeoutMillis = enqueueTimeoutMillis;
+        this.thread = new Thread(this::run, "SimplePunishments-Writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public void enqueueInsert(Punishment punishment) {
+        if (!journaled(punishment, true)) {
+            enqueue(new Operation(punishment, true, -1));
+        }
+    }
+
+    public void enqueueUpdate(Punishment punishment) {
+        if (!journaled(punishment, false)) {
+            enqueue(new Operation(punishment, false, -1));
+        }
+    }
+
+    // The write is durable in the journal before this returns. Appending and queueing happen under one lock so
+    // the queue stays in journal order; a full queue needs no fallback, since replay picks the write up.
+    private boolean journaled(Punishment punishment, boolean insert) {
+        if (journal == null) return false;
+
+        long sequence;
+        Operation operation;
+        try {
+            synchronized (journalLock) {
+                sequence = journal.append(punishment, insert);
+                operation = new Operation(punishment, insert, sequence);
+                if (!closed) {
+                    pending.incrementAndGet();
+                    enqueued.increment();
+                    if (!queue.offer(operation)) {
+                        pending.decrementAndGet();
+                        journalOnly.increment();
+                    }
+                    highWaterMark.accumulateAndGet(queue.size(), Math::max);
+                }
+            }
+            journal.sync(sequence);
+        } catch (IOException e) {
+            logger.severe("Failed to journal punishment, writing it without the journal: " + e.getMessage());
+            return false;
+        }
+
+        if (closed) {
+            writeDirect(operation);
+        }
+        return true;
+    }
+
+    private void enqueue(Operation operation) {
+        if (closed) {
+            writeDirect(operation);
+            return;
+        }
+
+        pending.incrementAndGet();
+        enqueued.increment();
+        try {
+            if (!queue.offer(operation)) {
+                enqueueWaits.increment();
+                if (!queue.offer(operation, enqueueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    // The writer is saturated; write on the caller rather than drop the punishment
+                    pending.decrementAndGet();
+                    syncFallbacks.increment();
+                    writeDirect(operation);
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.decrementAndGet();
+            writeDirect(operation);
+            return;
+        }
+
+        int depth = queue.size();
+        highWaterMark.accumulateAndGet(depth, Math::max);
+    }
+
+    private void run() {
+        List<Operation> drained = new ArrayList<>(batchSize);
+        boolean running = true;
+
+        while (running) {
+            try {
+                // With journaled writes outstanding that are not in the queue, wake up to retry them
+                Operation next = journal != null && journal.getBacklog() > 0
+                        ? queue.poll(retryMillis, TimeUnit.MILLISECONDS)
+                        : queue.take();
+                if (next == null) {
+                    replayJournal(false);
+                    continue;
+                }
+                drained.add(next);
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(drained, batchSize - 1);
+
+            int shutdownIndex = drained.indexOf(SHUTDOWN);
+            if (shutdownIndex >= 0) {
+                // Everything queued before shutdown() is still written; the marker itself is not
+                drained.remove(shutdownIndex);
+                queue.drainTo(drained);
+                running = false;
+            }
+
+            int processed = drained.size();
+            if (journal != null) {
+                // Writes a replay already applied are dropped. A gap means earlier journaled writes are missing
+                // from the database, and replaying them covers this batch too.
+                long applied = journal.getApplied();
+                drained.removeIf(operation -> operation.sequence >= 0 && operation.sequence <= applied);
+                if (!inOrder(drained)) {
+                    replayJournal(!running);
+                    drained.removeIf(operation -> operation.sequence >= 0);
+                }
+            }
+            writeBatch(drained);
+            drained.clear();
+
+            pending.addAndGet(-processed);
+            synchronized (flushLock) {
+                flushLock.notifyAll();
+            }
+        }
+
+        // Writes that never made it into the queue get one last attempt before the journal closes
+        if (journal != null && journal.getBacklog() > 0) {
+            replayJournal(true);
+        }
+    }
+
+    private void writeBatch(List<Operation> operations) {
+        if (operations.isEmpty()) return;
+
+        // An insert followed by updates of the same punishment collapses into the insert, since both
+        // read the live Punishment state; repeated updates collapse into one
+        Map<UUID, Operation> merged = new LinkedHashMap<>();
+        for (Operation operation : operations) {
+            UUID id = operation.punishment.getId();
+            Operation previous = merged.get(id);
+            if (previous == null) {
+                merged.put(id, operation);
+            } else {
+                coalesced.increment();
+                if (!previous.insert && operation.insert) {
+                    merged.put(id, operation);
+                }
+            }
+        }
+
+        List<Punishment> inserts = new ArrayList<>();
+        List<Punishment> updates = new ArrayList<>();
+        for (Operation operation : merged.values()) {
+            (operation.insert ? inserts : updates).add(operation.punishment);
+        }
+
+        try {
+            database.writeBatch(inserts, updates);
+            written.add(merged.size());
+            batches.increment();
+            long first = -1;
+            long last = -1;
+            for (Operation operation : operations) {
+                if (operation.sequence < 0) continue;
+                if (first < 0) first = operation.sequence;
+                last = operation.sequence;
+            }
+            if (journal != null && first >= 0) {
+                journal.markApplied(first, last);
+            }
+        } catch (Exception e) {
+            failures.increment();
+            if (journal == null) {
+                logger.severe("Failed to write batch of " + merged.size() + " punishments: " + e.getMessage());
+            } else {
+                enterOutage(e);
+            }
+        }
+    }
+
+    // True when the batch's journaled writes directly follow everything already applied, without gaps
+    private boolean inOrder(List<Operation> operations) {
+        long expected = journal.getApplied() + 1;
+        for (Operation operation : operations) {
+            if (operation.sequence < 0) continue;
+            if (operation.sequence != expected) return false;
+            expected++;
+        }
+        return true;
+    }
+
+    // Idempotent, so rows that did reach the database before a failure are simply skipped
+    private void replayJournal(boolean force) {
+        if (!force && System.currentTimeMillis() < nextReplay) return;
+
+        try {
+            long before = journal.getReplayed();
+            if (failedReplays >= maxRetries) {
+                // The same batch keeps failing; a record the database rejects must not hold up every later write
+                journal.replayIsolated(batchSize, database::replayBatch);
+            }
+            journal.replay(batchSize, database::replayBatch);
+            failedReplays = 0;
+            if (outage) {
+                outage = false;
+                logger.info("Database writes recovered, replayed " + (journal.getReplayed() - before) + " journaled writes");
+            }
+        } catch (Exception e) {
+            failures.increment();
+            failedReplays++;
+            enterOutage(e);
+        }
+    }
+
+    private void enterOutage(Exception e) {
+        nextReplay = System.currentTimeMillis() + retryMillis;
+        if (!outage) {
+            outage = true;
+            logger.severe("Database write failed, keeping writes in the journal until it recovers: " + e.getMessage());
+        }
+    }
+
+    private void writeDirect(Operation operation) {
+        List<Punishment> single = List.of(operation.punishment);
+        try {
+            if (operation.insert) {
+                database.writeBatch(single, List.of());
+            } else {
+                database.writeBatch(List.of(), single);
+            }
+            written.increment();
+            if (journal != null && operation.sequence >= 0) {
+                journal.markApplied(operation.sequence, operation.sequence);
+            }
+        } catch (Exception e) {
+            failures.increment();
+            logger.severe(operation.sequence >= 0
+                    ? "Failed to write punishment, it stays in the journal: " + e.getMessage()
+                    : "Failed to write punishment: " + e.getMessage());
+        }
+    }
+
+    // Blocks until everything enqueued so far has been written or the timeout passes
+    public boolean flush(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (flushLock) {
+            while (pending.get() > 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0 || !thread.isAlive()) {
+                    return pending.get() == 0;
+                }
+                try {
+                    flushLock.wait(Math.min(remaining, 100));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // False when the writer thread is still running after the timeout
+    public boolean shutdown(long timeoutMillis) {
+        if (closed) return true;
+        closed = true;
+
+        try {
+            queue.put(SHUTDOWN);
+            thread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (thread.isAlive()) {
+            logger.warning("Punishment writer did not finish within " + timeoutMillis + "ms, "
+                    + pending.get() + (journal != null ? " writes are left to the journal" : " writes may be lost"));
+            return false;
+        }
+
+        // Anything that raced in after the marker is written on this thread
+        Operation leftover;
+        while ((leftover = queue.poll()) != null) {
+            if (leftover != SHUTDOWN) writeDirect(leftover);
+        }
+        return true;
+    }
+
+    public int getQueueDepth() { return queue.size(); }
+    public int getQueueCapacity() { return queue.size() + queue.remainingCapacity(); }
+    public int getHighWaterMark() { return highWaterMark.get(); }
+    public long getPending() { return pending.get(); }
+    public long getEnqueued() { return enqueued.sum(); }
+    public long getWritten() { return written.sum(); }
+    public long getCoalesced() { return coalesced.sum(); }
+    public long getBatches() { return batches.sum(); }
+    public long getFailures() { return failures.sum(); }
+    public long getEnqueueWaits() { return enqueueWaits.sum(); }
+    public long getSyncFallbacks() { return syncFallbacks.sum(); }
+    public long getJournalOnly() { return journalOnly.sum(); }
+
+    private static final class Operation {
+        private final Punishment punishment;
+        private final boolean insert;
+        // Journal sequence number, or -1 when not journaled
+        private final long sequence;
+
+        private Operation(Punishment punishment, boolean insert, long sequence) {
+            this.punishment = punishment;
+            this.insert = insert;
+            this.sequence = sequence;
+        }
+    }
+}
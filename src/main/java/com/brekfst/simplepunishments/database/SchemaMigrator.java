@@ -0,0 +1,249 @@
+package com.brekfst.simplepunishments.database;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.mongodb.reactivestreams.client.MongoDatabase;
+import org.bson.Document;
+import org.reactivestreams.Publisher;
+
+import java.sql.*;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.logging.Logger;
+
+public class SchemaMigrator {
+    private static final int INDEX_NOT_FOUND = 27;
+
+    private final Logger logger;
+
+    public SchemaMigrator(Logger logger) {
+        this.logger = logger;
+    }
+
+    // Migrations are append-only: never edit or reorder one that has shipped, add a new version instead
+    private static List<Migration<Connection>> sqlMigrations() {
+        return List.of(
+                new Migration<>(1, "Create punishments table", conn -> execute(conn, """
+                    CREATE TABLE IF NOT EXISTS punishments (
+                        id VARCHAR(36) PRIMARY KEY,
+                        target_id VARCHAR(36) NOT NULL,
+                        type VARCHAR(20) NOT NULL,
+                        reason TEXT,
+                        issuer_id VARCHAR(36),
+                        created_at TIMESTAMP NOT NULL,
+                        duration BIGINT,
+                        active BOOLEAN DEFAULT TRUE,
+                        ip VARCHAR(45)
+                    )
+                """)),
+                new Migration<>(2, "Index punishments by target",
+                        conn -> createIndex(conn, "punishments", "idx_punishments_target", "target_id, active, type")),
+                new Migration<>(3, "Index punishments by IP",
+                        conn -> createIndex(conn, "punishments", "idx_punishments_ip", "ip, active")),
+                new Migration<>(4, "Index active punishments",
+                        conn -> createIndex(conn, "punishments", "idx_punishments_active", "active, type")),
+                new Migration<>(5, "Index punishment history order",
+                        conn -> createIndex(conn, "punishments", "idx_punishments_history", "target_id, created_at, id")),
+                new Migration<>(6, "Create players table", conn -> {
+                    execute(conn, """
+                        CREATE TABLE IF NOT EXISTS players (
+                            id VARCHAR(36) PRIMARY KEY,
+                            name VARCHAR(16) NOT NULL,
+                            name_lower VARCHAR(16) NOT NULL,
+                            last_seen TIMESTAMP NOT NULL
+                        )
+                    """);
+                    createIndex(conn, "players", "idx_players_name", "name_lower, last_seen");
+                }),
+                new Migration<>(7, "Track punishment update times", conn -> {
+                    addColumn(conn, "punishments", "updated_at", "TIMESTAMP NULL");
+                    createIndex(conn, "punishments", "idx_punishments_updated", "updated_at");
+                }),
+                // Bedrock (Floodgate) prefixes and offline-mode names can run past 16 characters. SQLite does
+                // not enforce VARCHAR lengths and has no MODIFY, so only MySQL needs the change.
+                new Migration<>(8, "Widen player names", conn -> {
+                    if (!isSqlite(conn)) {
+                        execute(conn, "ALTER TABLE players MODIFY name VARCHAR(64) NOT NULL, MODIFY name_lower VARCHAR(64) NOT NULL");
+                    }
+                })
+        );
+    }
+
+    private static List<Migration<MongoDatabase>> mongoMigrations() {
+        return List.of(
+                new Migration<>(1, "Index punishments by target", db -> await(db.getCollection("punishments").createIndex(
+                        Indexes.ascending("targetId", "active", "type"),
+                        new IndexOptions().name("idx_punishments_target")))),
+                new Migration<>(2, "Index punishments by IP", db -> await(db.getCollection("punishments").createIndex(
+                        Indexes.ascending("ip", "active"),
+                        new IndexOptions().name("idx_punishments_ip")))),
+                new Migration<>(3, "Index active punishments", db -> await(db.getCollection("punishments").createIndex(
+                        Indexes.ascending("active", "type"),
+                        new IndexOptions().name("idx_punishments_active")))),
+                new Migration<>(4, "Index punishment history order", db -> await(db.getCollection("punishments").createIndex(
+                        Indexes.compoundIndex(Indexes.ascending("targetId"), Indexes.descending("createdAt", "_id")),
+                        new IndexOptions().name("idx_punishments_history")))),
+                new Migration<>(5, "Index players by name", db -> await(db.getCollection("players").createIndex(
+                        Indexes.compoundIndex(Indexes.ascending("nameLower"), Indexes.descending("lastSeen")),
+                        new IndexOptions().name("idx_players_name")))),
+                // Adds _id to the name index so the name -> UUID lookup is answered from the index alone
+                new Migration<>(6, "Cover player lookups by name", db -> {
+                    await(db.getCollection("players").createIndex(
+                            Indexes.compoundIndex(Indexes.ascending("nameLower"), Indexes.descending("lastSeen"), Indexes.ascending("_id")),
+                            new IndexOptions().name("idx_players_name_id")));
+                    try {
+                        await(db.getCollection("players").dropIndex("idx_players_name"));
+                    } catch (CompletionException e) {
+                        // Already dropped by an earlier run that failed before recording the version
+                        if (!(e.getCause() instanceof MongoException) || ((MongoException) e.getCause()).getCode() != INDEX_NOT_FOUND) {
+                            throw e;
+                        }
+                    }
+                }),
+                new Migration<>(7, "Index punishment update times", db -> await(db.getCollection("punishments").createIndex(
+                        Indexes.ascending("updatedAt"),
+                        new IndexOptions().name("idx_punishments_updated"))))
+        );
+    }
+
+    public void migrate(Connection conn) throws SQLException {
+        execute(conn, """
+            CREATE TABLE IF NOT EXISTS schema_version (
+                version INT PRIMARY KEY,
+                description VARCHAR(255) NOT NULL,
+                applied_at TIMESTAMP NOT NULL
+            )
+        """);
+
+        int current = currentSqlVersion(conn);
+        for (Migration<Connection> migration : sqlMigrations()) {
+            if (migration.version <= current) continue;
+
+            logger.info("Applying schema migration " + migration.version + ": " + migration.description);
+            try {
+                migration.step.apply(conn);
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "INSERT INTO schema_version (version, description, applied_at) VALUES (?, ?, ?)")) {
+                    pstmt.setInt(1, migration.version);
+                    pstmt.setString(2, migration.description);
+                    pstmt.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+                    pstmt.executeUpdate();
+                }
+            } catch (Exception e) {
+                // Another server sharing the database may have applied it first
+                if (currentSqlVersion(conn) < migration.version) {
+                    throw new SQLException("Schema migration " + migration.version + " failed: " + e.getMessage(), e);
+                }
+            }
+            current = migration.version;
+        }
+    }
+
+    public void migrate(MongoDatabase db) {
+        MongoCollection<Document> versions = db.getCollection("schema_version");
+
+        int current = currentMongoVersion(versions);
+        for (Migration<MongoDatabase> migration : mongoMigrations()) {
+            if (migration.version <= current) continue;
+
+            logger.info("Applying schema migration " + migration.version + ": " + migration.description);
+            try {
+                migration.step.apply(db);
+                await(versions.insertOne(new Document("_id", migration.version)
+                        .append("description", migration.description)
+                        .append("appliedAt", new Date())));
+            } catch (Exception e) {
+                if (currentMongoVersion(versions) < migration.version) {
+                    throw new RuntimeException("Schema migration " + migration.version + " failed: " + e.getMessage(), e);
+                }
+            }
+            current = migration.version;
+        }
+    }
+
+    private int currentSqlVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(version) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private int currentMongoVersion(MongoCollection<Document> versions) {
+        Document latest = Publishers.first(versions.find().sort(Sorts.descending("_id")).first()).join();
+        return latest != null ? latest.getInteger("_id") : 0;
+    }
+
+    // Migrations run once at startup, so blocking on the reactive driver here is fine
+    private static void await(Publisher<?> publisher) {
+        Publishers.first(publisher).join();
+    }
+
+    private static void execute(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    private static boolean isSqlite(Connection conn) throws SQLException {
+        return conn.getMetaData().getDatabaseProductName().equalsIgnoreCase("SQLite");
+    }
+
+    // CREATE INDEX IF NOT EXISTS is SQLite-only, so the index is looked up first. A migration that failed
+    // halfway, or another server racing on the same database, must not leave the retry failing on it.
+    private static void createIndex(Connection conn, String table, String name, String columns) throws SQLException {
+        if (hasIndex(conn, table, name)) return;
+        try {
+            execute(conn, "CREATE INDEX " + name + " ON " + table + " (" + columns + ")");
+        } catch (SQLException e) {
+            if (!hasIndex(conn, table, name)) throw e;
+        }
+    }
+
+    private static boolean hasIndex(Connection conn, String table, String name) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getIndexInfo(conn.getCatalog(), null, table, false, false)) {
+            while (rs.next()) {
+                if (name.equalsIgnoreCase(rs.getString("INDEX_NAME"))) return true;
+            }
+        }
+        return false;
+    }
+
+    // Neither dialect has ADD COLUMN IF NOT EXISTS, so the column is looked up the same way as indexes
+    private static void addColumn(Connection conn, String table, String column, String definition) throws SQLException {
+        if (hasColumn(conn, table, column)) return;
+        try {
+            execute(conn, "ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+        } catch (SQLException e) {
+            if (!hasColumn(conn, table, column)) throw e;
+        }
+    }
+
+    private static boolean hasColumn(Connection conn, String table, String column) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getColumns(conn.getCatalog(), null, table, null)) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("COLUMN_NAME"))) return true;
+            }
+        }
+        return false;
+    }
+
+    private interface Step<T> {
+        void apply(T target) throws Exception;
+    }
+
+    private static final class Migration<T> {
+        private final int version;
+        private final String description;
+        private final Step<T> step;
+
+        private Migration(int version, String description, Step<T> step) {
+            this.version = version;
+            this.description = description;
+            this.step = step;
+        }
+    }
+}
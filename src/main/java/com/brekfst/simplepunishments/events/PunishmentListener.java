@@ -1,9 +1,12 @@
 package com.brekfst.simplepunishments.events;
 
+import com.brekfst.simplepunishments.database.DatabaseUnavailableException;
+import com.brekfst.simplepunishments.punishments.DurationFormat;
 import com.brekfst.simplepunishments.punishments.Punishment;
 import com.brekfst.simplepunishments.punishments.PunishmentType;
 import com.brekfst.simplepunishments.SimplePunishments;
-import org.bukkit.entity.Player;
+import com.brekfst.simplepunishments.metrics.LatencyHistogram;
+import com.brekfst.simplepunishments.metrics.Metrics;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
@@ -11,99 +14,170 @@ import org.bukkit.event.player.AsyncPlayerChatEvent;
 import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerLoginEvent;
 
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 public class PunishmentListener implements Listener {
     private final SimplePunishments plugin;
+    private final Map<UUID, String> loginVerdicts = new ConcurrentHashMap<>();
+
+    private final LatencyHistogram loginCheckTimer;
+    private final LongAdder loginCacheReads;
+    private final LongAdder loginDatabaseReads;
+    private final LongAdder loginsDenied;
+    private final LongAdder chatChecks;
+    private final LongAdder chatBlocked;
+    private final LongAdder loginsDegraded;
+    private final LongAdder chatDegraded;
 
     public PunishmentListener(SimplePunishments plugin) {
         this.plugin = plugin;
+
+        Metrics metrics = plugin.getMetrics();
+        this.loginCheckTimer = metrics.timer("login_check");
+        this.loginCacheReads = metrics.counter("login_cache_reads_total");
+        this.loginDatabaseReads = metrics.counter("login_db_reads_total");
+        this.loginsDenied = metrics.counter("logins_denied_total");
+        this.chatChecks = metrics.counter("chat_checks_total");
+        this.chatBlocked = metrics.counter("chat_blocked_total");
+        this.loginsDegraded = metrics.counter("logins_degraded_total");
+        this.chatDegraded = metrics.counter("chat_degraded_total");
     }
 
     @EventHandler(priority = EventPriority.HIGHEST)
     public void onPlayerLogin(PlayerLoginEvent event) {
-        Player player = event.getPlayer();
-        String ip = event.getAddress().getHostAddress();
-
-        plugin.getPunishmentManager().reloadPlayerPunishments(player.getUniqueId());
-
-        if (plugin.getPunishmentManager().isIPBanned(ip)) {
-            Punishment ipBan = plugin.getPunishmentManager().getIPBan(ip);
-            if (ipBan != null && ipBan.isActive() && !ipBan.isExpired()) {
-                Map<String, String> placeholders = new HashMap<>();
-                placeholders.put("reason", ipBan.getReason());
-                placeholders.put("duration", "Permanent");
-                placeholders.put("issuer", ipBan.getIssuerId() != null ?
-                        plugin.getServer().getOfflinePlayer(ipBan.getIssuerId()).getName() : "Console");
-
-                event.disallow(PlayerLoginEvent.Result.KICK_BANNED,
-                        plugin.getConfigManager().getMessage("ipban-message", placeholders));
-                return;
+        // The verdict was computed off the main thread in onPreLogin
+        String kickMessage = loginVerdicts.remove(event.getPlayer().getUniqueId());
+        if (kickMessage != null) {
+            event.disallow(PlayerLoginEvent.Result.KICK_BANNED, kickMessage);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        long start = System.nanoTime();
+        UUID playerId = event.getUniqueId();
+        plugin.getPlayerDirectory().record(playerId, event.getName());
+
+        // The bus keeps memory current across servers; without it, or before the startup warm-up is done,
+        // the database is the only complete source
+        List<Punishment> punishments;
+        boolean verified = true;
+        if (plugin.getSyncService().isEnabled() && plugin.getPunishmentManager().isReady()) {
+            loginCacheReads.increment();
+            punishments = plugin.getPunishmentManager().getPlayerPunishments(playerId);
+        } else {
+            loginDatabaseReads.increment();
+            try {
+                punishments = plugin.getPunishmentManager().reloadPlayerPunishments(playerId);
+            } catch (DatabaseUnavailableException e) {
+                // Bans already in memory still apply; the policy decides for everyone else
+                loginsDegraded.increment();
+                verified = false;
+                punishments = plugin.getPunishmentManager().getPlayerPunishments(playerId);
             }
         }
+        Punishment ipBan = null;
+        try {
+            ipBan = plugin.getPunishmentManager().getIPBan(event.getAddress());
+        } catch (DatabaseUnavailableException e) {
+            if (verified) loginsDegraded.increment();
+            verified = false;
+        }
 
-        Optional<Punishment> ban = plugin.getPunishmentManager()
-                .getActivePunishment(player.getUniqueId(), PunishmentType.BAN);
-
-        if (ban.isPresent()) {
-            Punishment punishment = ban.get();
-            if (punishment.isActive() && !punishment.isExpired()) {
-                Map<String, String> placeholders = new HashMap<>();
-                placeholders.put("reason", punishment.getReason());
-                placeholders.put("duration", punishment.getDuration() == null ? "Permanent" :
-                        formatDuration(punishment.getDuration()));
-                placeholders.put("issuer", punishment.getIssuerId() != null ?
-                        plugin.getServer().getOfflinePlayer(punishment.getIssuerId()).getName() : "Console");
-                placeholders.put("expires", punishment.isPermanent() ? "Never" :
-                        plugin.getPunishmentManager().formatExpiration(punishment.getExpirationTime())); // Time remaining
+        String kickMessage = evaluateBan(ipBan, punishments);
+        if (kickMessage == null && !verified && failClosed()) {
+            kickMessage = plugin.getConfigManager().getMessage("database-unavailable");
+        }
 
-                String messageKey = punishment.isPermanent() ? "ban-message" : "temp-ban-message";
-                String kickMessage = plugin.getConfigManager().getMessage(messageKey, placeholders);
+        if (kickMessage != null) {
+            loginsDenied.increment();
+            loginVerdicts.put(playerId, kickMessage);
+        } else {
+            loginVerdicts.remove(playerId);
+        }
+        loginCheckTimer.recordSince(start);
+    }
 
-                event.disallow(PlayerLoginEvent.Result.KICK_BANNED, kickMessage);
-                return;
-            }
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPreLoginResult(AsyncPlayerPreLoginEvent event) {
+        // Another plugin refused the connection, so PlayerLoginEvent will never consume the verdict
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            loginVerdicts.remove(event.getUniqueId());
         }
     }
 
-    @EventHandler(priority = EventPriority.LOWEST)
-    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
-        UUID playerId = event.getUniqueId();
-        plugin.getPunishmentManager().reloadPlayerPunishments(playerId);
+    private String evaluateBan(Punishment ipBan, List<Punishment> punishments) {
+        if (ipBan != null) {
+            return plugin.getConfigManager().getMessage("ipban-message", placeholder -> switch (placeholder) {
+                case REASON -> ipBan.getReason();
+                case DURATION -> "Permanent";
+                case ISSUER -> issuerName(ipBan);
+                default -> null;
+            });
+        }
+
+        for (Punishment punishment : punishments) {
+            boolean isBan = punishment.getType() == PunishmentType.BAN || punishment.getType() == PunishmentType.TEMP_BAN;
+            if (isBan && punishment.isActive() && !punishment.isExpired()) {
+                String messageKey = punishment.isPermanent() ? "ban-message" : "temp-ban-message";
+                return plugin.getConfigManager().getMessage(messageKey, placeholder -> switch (placeholder) {
+                    case REASON -> punishment.getReason();
+                    case DURATION -> punishment.isPermanent() ? "Permanent" : DurationFormat.format(punishment.getDuration());
+                    case ISSUER -> issuerName(punishment);
+                    case EXPIRES -> punishment.isPermanent() ? "Never" :
+                            plugin.getPunishmentManager().formatExpiration(punishment.getExpirationTime());
+                    default -> null;
+                });
+            }
+        }
+        return null;
     }
 
     @EventHandler(priority = EventPriority.HIGH)
     public void onPlayerChat(AsyncPlayerChatEvent event) {
-        Optional<Punishment> activeMute = plugin.getPunishmentManager()
-                .getActivePunishment(event.getPlayer().getUniqueId(), PunishmentType.MUTE);
-
-        if (activeMute.isPresent()) {
-            Punishment mute = activeMute.get();
-            if (mute.isActive() && !mute.isExpired()) {
+        chatChecks.increment();
+        UUID playerId = event.getPlayer().getUniqueId();
+        Punishment mute;
+        try {
+            mute = plugin.getPunishmentManager().getActiveMute(playerId);
+        } catch (DatabaseUnavailableException e) {
+            chatDegraded.increment();
+            if (failClosed()) {
                 event.setCancelled(true);
-                Map<String, String> placeholders = new HashMap<>();
-                placeholders.put("reason", mute.getReason());
-                placeholders.put("duration", mute.getFormattedDuration());
-                placeholders.put("time-left", mute.getFormattedTimeLeft());
-                placeholders.put("expires", mute.getFormattedTimeLeft());
-                placeholders.put("issuer", mute.getIssuerId() != null ?
-                        plugin.getServer().getOfflinePlayer(mute.getIssuerId()).getName() : "Console");
-
-                String messageKey = mute.isPermanent() ? "mute-message" : "temp-mute-message";
-                event.getPlayer().sendMessage(plugin.getConfigManager().getMessage(messageKey, placeholders));
+                event.getPlayer().sendMessage(plugin.getConfigManager().getMessage("chat-unavailable"));
+                return;
             }
+            mute = plugin.getPunishmentManager().getCachedMute(playerId);
         }
+        if (mute == null) {
+            return;
+        }
+        chatBlocked.increment();
+
+        event.setCancelled(true);
+        event.getPlayer().sendMessage(muteMessage(mute));
+    }
+
+    private String muteMessage(Punishment mute) {
+        String messageKey = mute.isPermanent() ? "mute-message" : "temp-mute-message";
+        return plugin.getConfigManager().getMessage(messageKey, placeholder -> switch (placeholder) {
+            case REASON -> mute.getReason();
+            case DURATION -> mute.getFormattedDuration();
+            case TIME_LEFT, EXPIRES -> mute.getFormattedTimeLeft();
+            case ISSUER -> issuerName(mute);
+            default -> null;
+        });
     }
 
     @EventHandler
     public void onPunishment(PunishmentEvent event) {
         Punishment punishment = event.getPunishment();
-        String targetName = plugin.getServer().getOfflinePlayer(punishment.getTargetId()).getName();
-        String issuerName = punishment.getIssuerId() != null ?
-                plugin.getServer().getOfflinePlayer(punishment.getIssuerId()).getName() : "Console";
+        String targetName = plugin.getPlayerDirectory().getDisplayName(punishment.getTargetId());
+        String issuerName = issuerName(punishment);
 
         plugin.getLogger().info(String.format(
                 "Player %s was %s by %s for: %s",
@@ -114,11 +188,12 @@ public class PunishmentListener implements Listener {
         ));
     }
 
-    private String formatDuration(long seconds) {
-        if (seconds < 60) return seconds + "s";
-        if (seconds < 3600) return (seconds / 60) + "m";
-        if (seconds < 86400) return (seconds / 3600) + "h";
-        if (seconds < 604800) return (seconds / 86400) + "d";
-        return (seconds / 604800) + "w";
+    // What to do with players whose punishments could not be looked up while the database is unavailable
+    private boolean failClosed() {
+        return plugin.getConfig().getString("database.breaker.policy", "FAIL_OPEN").equalsIgnoreCase("FAIL_CLOSED");
+    }
+
+    private String issuerName(Punishment punishment) {
+        return plugin.getPlayerDirectory().getIssuerName(punishment.getIssuerId());
     }
 }
\ No newline at end of file
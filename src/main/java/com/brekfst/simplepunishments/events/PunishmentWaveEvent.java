@@ -0,0 +1,44 @@
+package com.brekfst.simplepunishments.events;
+
+import com.brekfst.simplepunishments.punishments.Punishment;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+import java.util.List;
+
+// Fired once for a whole ban wave instead of a PunishmentEvent per player. Listeners may remove
+// entries from the list to spare individual players, or cancel the wave outright.
+public class PunishmentWaveEvent extends Event implements Cancellable {
+    private static final HandlerList HANDLERS = new HandlerList();
+    private final List<Punishment> punishments;
+    private boolean cancelled;
+
+    public PunishmentWaveEvent(List<Punishment> punishments) {
+        this.punishments = punishments;
+        this.cancelled = false;
+    }
+
+    public List<Punishment> getPunishments() {
+        return punishments;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void setCancelled(boolean cancel) {
+        this.cancelled = cancel;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
@@ -0,0 +1,131 @@
+package com.brekfst.simplepunishments.exporter;
+
+import com.brekfst.simplepunishments.punishments.Punishment;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.UUID;
+
+// One line per punishment, columns named after the SQL table
+public enum ExportFormat {
+    NDJSON("ndjson") {
+        @Override
+        void writeHeader(Writer out) {
+        }
+
+        @Override
+        void writeRow(Writer out, Punishment punishment) throws IOException {
+            out.write("{\"id\":");
+            writeJson(out, punishment.getId().toString());
+            out.write(",\"target_id\":");
+            writeJson(out, punishment.getTargetId().toString());
+            out.write(",\"type\":");
+            writeJson(out, punishment.getType().toString());
+            out.write(",\"reason\":");
+            writeJson(out, punishment.getReason());
+            out.write(",\"issuer_id\":");
+            writeJson(out, idString(punishment.getIssuerId()));
+            out.write(",\"created_at\":");
+            writeJson(out, punishment.getCreatedAt().toString());
+            out.write(",\"duration\":");
+            out.write(punishment.isPermanent() ? "null" : String.valueOf(punishment.getDuration()));
+            out.write(",\"active\":");
+            out.write(String.valueOf(punishment.isActive()));
+            out.write(",\"ip\":");
+            writeJson(out, punishment.getBannedIP());
+            out.write("}\n");
+        }
+    },
+    CSV("csv") {
+        @Override
+        void writeHeader(Writer out) throws IOException {
+            out.write("id,target_id,type,reason,issuer_id,created_at,duration,active,ip\r\n");
+        }
+
+        @Override
+        void writeRow(Writer out, Punishment punishment) throws IOException {
+            out.write(punishment.getId().toString());
+            out.write(',');
+            out.write(punishment.getTargetId().toString());
+            out.write(',');
+            out.write(punishment.getType().toString());
+            out.write(',');
+            writeCsv(out, punishment.getReason());
+            out.write(',');
+            writeCsv(out, idString(punishment.getIssuerId()));
+            out.write(',');
+            out.write(punishment.getCreatedAt().toString());
+            out.write(',');
+            if (!punishment.isPermanent()) out.write(String.valueOf(punishment.getDuration()));
+            out.write(',');
+            out.write(String.valueOf(punishment.isActive()));
+            out.write(',');
+            writeCsv(out, punishment.getBannedIP());
+            out.write("\r\n");
+        }
+    };
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    abstract void writeHeader(Writer out) throws IOException;
+
+    abstract void writeRow(Writer out, Punishment punishment) throws IOException;
+
+    private static String idString(UUID id) {
+        return id != null ? id.toString() : null;
+    }
+
+    private static void writeJson(Writer out, String value) throws IOException {
+        if (value == null) {
+            out.write("null");
+            return;
+        }
+
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+                }
+            }
+        }
+        out.write('"');
+    }
+
+    // RFC 4180: quoted only when needed, quotes doubled; null is an empty field
+    private static void writeCsv(Writer out, String value) throws IOException {
+        if (value == null) return;
+
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
@@ -0,0 +1,140 @@
+package com.brekfst.simplepunishments.exporter;
+
+import com.brekfst.simplepunishments.SimplePunishments;
+import com.brekfst.simplepunishments.config.Placeholders;
+import com.brekfst.simplepunishments.database.DatabaseManager;
+import com.brekfst.simplepunishments.punishments.Punishment;
+import com.brekfst.simplepunishments.punishments.PunishmentFilter;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+// Runs /sp export on its own thread, writing rows as the database cursor yields them so the heap holds
+// one row and the stream buffers no matter how large the table is
+public class PunishmentExporter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final SimplePunishments plugin;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public PunishmentExporter(SimplePunishments plugin) {
+        this.plugin = plugin;
+    }
+
+    public boolean start(CommandSender sender, ExportFormat format, PunishmentFilter filter, boolean gzip) {
+        if (!running.compareAndSet(false, true)) return false;
+
+        String name = "punishments-" + LocalDateTime.now().format(FILE_TIMESTAMP) + "." + format.getExtension() + (gzip ? ".gz" : "");
+        File file = new File(new File(plugin.getDataFolder(), "exports"), name);
+        Thread thread = new Thread(() -> {
+            try {
+                run(sender, format, filter, gzip, file);
+            } finally {
+                running.set(false);
+            }
+        }, "SimplePunishments-Export");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    private void run(CommandSender sender, ExportFormat format, PunishmentFilter filter, boolean gzip, File file) {
+        // Written under a temporary name so a half-finished export is never mistaken for a complete one
+        File partial = new File(file.getPath() + ".part");
+        send(sender, "command.sp.export-started", file, 0);
+
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            long rows;
+            try (Writer out = open(partial, gzip)) {
+                format.writeHeader(out);
+                rows = plugin.getDatabaseManager().streamPunishments(filter, new Progress(sender, format, file, out));
+            }
+            Files.move(partial.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+            plugin.getLogger().info("Exported " + rows + " punishments to " + file);
+            send(sender, "command.sp.export-complete", file, rows);
+        } catch (Exception e) {
+            partial.delete();
+            plugin.getLogger().severe("Export to " + file + " failed: " + e.getMessage());
+            Placeholders placeholders = placeholder -> switch (placeholder) {
+                case FILE -> file.getPath();
+                case REASON -> String.valueOf(e.getMessage());
+                default -> null;
+            };
+            deliver(sender, plugin.getConfigManager().getMessage("command.sp.export-failed", placeholders));
+        }
+    }
+
+    private static Writer open(File file, boolean gzip) throws IOException {
+        OutputStream stream = Files.newOutputStream(file.toPath());
+        if (gzip) {
+            stream = new GZIPOutputStream(stream, BUFFER_SIZE);
+        }
+        return new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    private void send(CommandSender sender, String path, File file, long rows) {
+        deliver(sender, plugin.getConfigManager().getMessage(path, placeholder -> switch (placeholder) {
+            case FILE -> file.getPath();
+            case TOTAL -> String.valueOf(rows);
+            default -> null;
+        }));
+    }
+
+    // Messages go out on the main thread; a player who left meanwhile just misses them
+    private void deliver(CommandSender sender, String message) {
+        if (!plugin.isEnabled()) return;
+        plugin.getServer().getScheduler().runTask(plugin, () -> {
+            if (sender instanceof Player && !((Player) sender).isOnline()) return;
+            sender.sendMessage(message);
+        });
+    }
+
+    private final class Progress implements DatabaseManager.RowHandler {
+        private final CommandSender sender;
+        private final ExportFormat format;
+        private final File file;
+        private final Writer out;
+        private final long reportInterval;
+        private long rows;
+        private long lastReport = System.nanoTime();
+
+        private Progress(CommandSender sender, ExportFormat format, File file, Writer out) {
+            this.sender = sender;
+            this.format = format;
+            this.file = file;
+            this.out = out;
+            this.reportInterval = TimeUnit.SECONDS.toNanos(Math.max(1, plugin.getConfig().getLong("export.progress-interval", 10)));
+        }
+
+        @Override
+        public void accept(Punishment punishment) throws IOException {
+            format.writeRow(out, punishment);
+            rows++;
+            if (System.nanoTime() - lastReport >= reportInterval) {
+                lastReport = System.nanoTime();
+                send(sender, "command.sp.export-progress", file, rows);
+            }
+        }
+    }
+}
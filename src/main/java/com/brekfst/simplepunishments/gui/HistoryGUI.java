@@ -1,14 +1,19 @@
 package com.brekfst.simplepunishments.gui;
 
+import com.brekfst.simplepunishments.players.PlayerProfile;
+import com.brekfst.simplepunishments.punishments.HistoryPage;
 import com.brekfst.simplepunishments.punishments.Punishment;
 import com.brekfst.simplepunishments.SimplePunishments;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
-import org.bukkit.OfflinePlayer;
-import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.inventory.meta.SkullMeta;
@@ -17,67 +22,136 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+public class HistoryGUI implements Listener {
+    private static final int PREVIOUS_SLOT = 45;
+    private static final int INFO_SLOT = 49;
+    private static final int NEXT_SLOT = 53;
 
-public class HistoryGUI {
     private final SimplePunishments plugin;
-    private final FileConfiguration config;
-    private final Map<UUID, Integer> playerPages = new HashMap<>();
     private final int ITEMS_PER_PAGE = 45;
 
     public HistoryGUI(SimplePunishments plugin) {
         this.plugin = plugin;
-        this.config = plugin.getConfig();
     }
 
-    public void openGUI(Player viewer, OfflinePlayer target) {
-        List<Punishment> punishments = plugin.getPunishmentManager().getPlayerPunishments(target.getUniqueId());
-        int page = playerPages.getOrDefault(viewer.getUniqueId(), 0);
-        int maxPages = (int) Math.ceil(punishments.size() / (double) ITEMS_PER_PAGE);
-
-        String title = config.getString("gui.title", "Punishment History")
+    public void openGUI(Player viewer, PlayerProfile target) {
+        String title = plugin.getConfig().getString("gui.title", "Punishment History")
                 .replace("%player%", target.getName())
                 .replace("&", "§");
 
-        Inventory gui = Bukkit.createInventory(null, 54, title);
+        HistorySession session = new HistorySession(target);
+        session.inventory = Bukkit.createInventory(session, 54, title);
+        session.loading = true;
+
+        // The total and the first page load together off the main thread
+        plugin.getPunishmentManager().countHistory(target.getUniqueId())
+                .thenCombine(plugin.getPunishmentManager().loadHistoryPage(target.getUniqueId(), null, ITEMS_PER_PAGE),
+                        (total, page) -> {
+                            session.total = total;
+                            return page;
+                        })
+                .whenComplete((page, error) -> plugin.getServer().getScheduler().runTask(plugin, () -> {
+                    session.loading = false;
+                    if (error != null) {
+                        plugin.getLogger().severe("Failed to load punishment history: " + error.getMessage());
+                        return;
+                    }
+                    session.pages.add(page);
+                    render(session, 0);
+                    viewer.openInventory(session.inventory);
+                }));
+    }
 
-        // Add punishment items
-        int startIndex = page * ITEMS_PER_PAGE;
-        int endIndex = Math.min(startIndex + ITEMS_PER_PAGE, punishments.size());
+    private void showPage(HistorySession session, int index) {
+        if (session.loading) return;
 
-        for (int i = startIndex; i < endIndex; i++) {
-            Punishment punishment = punishments.get(i);
-            ItemStack item = createPunishmentItem(punishment);
-            gui.setItem(i - startIndex, item);
+        if (index < session.pages.size()) {
+            render(session, index);
+            return;
+        }
+
+        CompletableFuture<HistoryPage> next = session.prefetch != null ? session.prefetch
+                : plugin.getPunishmentManager().loadHistoryPage(session.targetId, session.pages.get(index - 1).getCursor(), ITEMS_PER_PAGE);
+        session.prefetch = null;
+        session.loading = true;
+
+        next.whenComplete((page, error) -> plugin.getServer().getScheduler().runTask(plugin, () -> {
+            session.loading = false;
+            if (error != null) {
+                plugin.getLogger().severe("Failed to load punishment history: " + error.getMessage());
+                return;
+            }
+            session.pages.add(page);
+            render(session, index);
+        }));
+    }
+
+    private void render(HistorySession session, int index) {
+        HistoryPage page = session.pages.get(index);
+        session.page = index;
+
+        Inventory gui = session.inventory;
+        gui.clear();
+
+        List<Punishment> punishments = page.getPunishments();
+        for (int i = 0; i < punishments.size(); i++) {
+            gui.setItem(i, createPunishmentItem(punishments.get(i)));
         }
 
         // Add navigation items
-        if (page > 0) {
-            gui.setItem(45, createNavigationItem("previous-page"));
+        if (index > 0) {
+            gui.setItem(PREVIOUS_SLOT, createNavigationItem("previous-page"));
         }
-        if (page < maxPages - 1) {
-            gui.setItem(53, createNavigationItem("next-page"));
+        if (page.hasNext()) {
+            gui.setItem(NEXT_SLOT, createNavigationItem("next-page"));
         }
 
         // Add info items
-        gui.setItem(49, createInfoItem(target, punishments.size()));
+        gui.setItem(INFO_SLOT, createInfoItem(session.target, session.total));
 
-        viewer.openInventory(gui);
+        // Fetch the following page while the viewer reads this one
+        if (page.hasNext() && index == session.pages.size() - 1 && session.prefetch == null) {
+            session.prefetch = plugin.getPunishmentManager().loadHistoryPage(session.targetId, page.getCursor(), ITEMS_PER_PAGE);
+        }
+    }
+
+    @EventHandler
+    public void onInventoryClick(InventoryClickEvent event) {
+        if (!(event.getInventory().getHolder() instanceof HistorySession)) return;
+        event.setCancelled(true);
+
+        HistorySession session = (HistorySession) event.getInventory().getHolder();
+        int slot = event.getRawSlot();
+        if (slot == PREVIOUS_SLOT && session.page > 0) {
+            showPage(session, session.page - 1);
+        } else if (slot == NEXT_SLOT && session.pages.get(session.page).hasNext()) {
+            showPage(session, session.page + 1);
+        }
+    }
+
+    @EventHandler
+    public void onInventoryDrag(InventoryDragEvent event) {
+        if (event.getInventory().getHolder() instanceof HistorySession) {
+            event.setCancelled(true);
+        }
     }
 
     private ItemStack createPunishmentItem(Punishment punishment) {
-        String materialName = config.getString("gui.items." + punishment.getType().toString().toLowerCase() + ".material", "PAPER");
+        String materialName = plugin.getConfig().getString("gui.items." + punishment.getType().toString().toLowerCase() + ".material", "PAPER");
         Material material = Material.valueOf(materialName);
 
         ItemStack item = new ItemStack(material);
         ItemMeta meta = item.getItemMeta();
 
-        String nameFormat = config.getString("gui.items." + punishment.getType().toString().toLowerCase() + ".name", "&c%type% &7- %date%");
+        String nameFormat = plugin.getConfig().getString("gui.items." + punishment.getType().toString().toLowerCase() + ".name", "&c%type% &7- %date%");
         meta.setDisplayName(ChatColor.translateAlternateColorCodes('&', nameFormat
                 .replace("%type%", punishment.getType().toString())
                 .replace("%date%", formatDate(punishment.getCreatedAt()))
         ));
 
-        List<String> loreFormat = config.getStringList("gui.items." + punishment.getType().toString().toLowerCase() + ".lore");
+        List<String> loreFormat = plugin.getConfig().getStringList("gui.items." + punishment.getType().toString().toLowerCase() + ".lore");
         List<String> lore = new ArrayList<>();
 
         for (String line : loreFormat) {
@@ -96,34 +170,34 @@ public class HistoryGUI {
     }
 
     private ItemStack createNavigationItem(String type) {
-        String materialName = config.getString("gui.navigation." + type + ".material", "ARROW");
+        String materialName = plugin.getConfig().getString("gui.navigation." + type + ".material", "ARROW");
         Material material = Material.valueOf(materialName);
 
         ItemStack item = new ItemStack(material);
         ItemMeta meta = item.getItemMeta();
 
-        String name = config.getString("gui.navigation." + type + ".name", "&7" + type);
+        String name = plugin.getConfig().getString("gui.navigation." + type + ".name", "&7" + type);
         meta.setDisplayName(ChatColor.translateAlternateColorCodes('&', name));
 
         item.setItemMeta(meta);
         return item;
     }
 
-    private ItemStack createInfoItem(OfflinePlayer target, int totalPunishments) {
-        String materialName = config.getString("gui.info.material", "PLAYER_HEAD");
+    private ItemStack createInfoItem(PlayerProfile target, int totalPunishments) {
+        String materialName = plugin.getConfig().getString("gui.info.material", "PLAYER_HEAD");
         ItemStack item = new ItemStack(Material.valueOf(materialName));
         ItemMeta meta = item.getItemMeta();
 
         if (meta instanceof SkullMeta && materialName.equals("PLAYER_HEAD")) {
-            ((SkullMeta) meta).setOwningPlayer(target);
+            ((SkullMeta) meta).setOwningPlayer(plugin.getServer().getOfflinePlayer(target.getUniqueId()));
         }
 
-        String nameFormat = config.getString("gui.info.name", "&e%player%'s History");
+        String nameFormat = plugin.getConfig().getString("gui.info.name", "&e%player%'s History");
         meta.setDisplayName(ChatColor.translateAlternateColorCodes('&', nameFormat
                 .replace("%player%", target.getName())
         ));
 
-        List<String> loreFormat = config.getStringList("gui.info.lore");
+        List<String> loreFormat = plugin.getConfig().getStringList("gui.info.lore");
         List<String> lore = new ArrayList<>();
 
         for (String line : loreFormat) {
@@ -144,9 +218,7 @@ public class HistoryGUI {
     }
 
     private String getIssuerName(Punishment punishment) {
-        return punishment.getIssuerId() != null ?
-                plugin.getServer().getOfflinePlayer(punishment.getIssuerId()).getName() :
-                "Console";
+        return plugin.getPlayerDirectory().getIssuerName(punishment.getIssuerId());
     }
 
     private String getExpirationText(Punishment punishment) {
@@ -154,4 +226,26 @@ public class HistoryGUI {
         if (!punishment.isActive()) return "Expired";
         return plugin.getPunishmentManager().formatExpiration(punishment.getExpirationTime());
     }
-}
\ No newline at end of file
+
+    // Per-viewer paging state; pages already seen are kept so going back needs no query
+    private static final class HistorySession implements InventoryHolder {
+        private final PlayerProfile target;
+        private final UUID targetId;
+        private final List<HistoryPage> pages = new ArrayList<>();
+        private CompletableFuture<HistoryPage> prefetch;
+        private Inventory inventory;
+        private int page;
+        private int total;
+        private boolean loading;
+
+        private HistorySession(PlayerProfile target) {
+            this.target = target;
+            this.targetId = target.getUniqueId();
+        }
+
+        @Override
+        public Inventory getInventory() {
+            return inventory;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.brekfst.simplepunishments.importer;
+
+import com.brekfst.simplepunishments.SimplePunishments;
+import com.brekfst.simplepunishments.config.Placeholders;
+import com.brekfst.simplepunishments.punishments.IpRange;
+import com.brekfst.simplepunishments.punishments.Punishment;
+import com.brekfst.simplepunishments.punishments.PunishmentManager;
+import com.brekfst.simplepunishments.punishments.PunishmentType;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Runs /sp import on its own thread: entries are streamed, deduplicated and written in large batches
+// straight to the database, skipping the per-punishment event, insert and lookup of punishPlayer.
+// A checkpoint is saved after every committed batch so an interrupted import resumes where it stopped.
+public class BanImporter {
+    private final SimplePunishments plugin;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean cancelled;
+    private volatile Thread thread;
+
+    public BanImporter(SimplePunishments plugin) {
+        this.plugin = plugin;
+    }
+
+    public boolean start(CommandSender sender, VanillaBanReader.Source source, File file) {
+        if (!running.compareAndSet(false, true)) return false;
+        cancelled = false;
+
+        Thread thread = new Thread(() -> {
+            try {
+                run(sender, source, file);
+            } finally {
+                running.set(false);
+            }
+        }, "SimplePunishments-Import");
+        thread.setDaemon(true);
+        this.thread = thread;
+        thread.start();
+        return true;
+    }
+
+    // The current batch is still committed and checkpointed before the import stops
+    public boolean cancel() {
+        if (!running.get()) return false;
+        cancelled = true;
+        return true;
+    }
+
+    // On disable: waits for the batch in flight to commit, so it never runs against closed pools
+    public void shutdown(long timeoutMillis) {
+        Thread thread = this.thread;
+        if (!cancel() || thread == null) return;
+        try {
+            thread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            plugin.getLogger().warning("Import did not stop within " + timeoutMillis + " ms");
+        }
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    private void run(CommandSender sender, VanillaBanReader.Source source, File file) {
+        PunishmentManager manager = plugin.getPunishmentManager();
+        ImportCheckpoint checkpoint = new ImportCheckpoint(
+                new File(plugin.getDataFolder(), "imports/" + file.getName() + ".checkpoint"), file);
+        int batchSize = Math.max(1, plugin.getConfig().getInt("import.batch-size", 5000));
+        long reportInterval = TimeUnit.SECONDS.toNanos(Math.max(1, plugin.getConfig().getLong("import.progress-interval", 10)));
+
+        List<Punishment> batch = new ArrayList<>(batchSize);
+        Map<UUID, String> names = new HashMap<>();
+        // Duplicates across batches are caught by the cache once a batch is added; this covers the open batch
+        Set<String> batchKeys = new HashSet<>();
+        long imported = 0;
+        long skipped = 0;
+
+        try (VanillaBanReader reader = new VanillaBanReader(plugin, source, file)) {
+            long resumeAt = checkpoint.load();
+            if (resumeAt > 0) {
+                reader.skip(resumeAt);
+                plugin.getLogger().info("Resuming import of " + file + " after " + resumeAt + " entries");
+                send(sender, "command.sp.import-resumed", file, reader.getPosition(), 0, 0);
+            } else {
+                plugin.getLogger().info("Importing " + file);
+                send(sender, "command.sp.import-started", file, 0, 0, 0);
+            }
+
+            long lastReport = System.nanoTime();
+            VanillaBanReader.Entry entry;
+            while (!cancelled && (entry = reader.next()) != null) {
+                Punishment punishment = entry.getPunishment();
+                if (punishment == null || punishment.isExpired() || isDuplicate(manager, punishment, batchKeys)) {
+                    skipped++;
+                } else {
+                    batch.add(punishment);
+                    if (entry.getName() != null && punishment.getType() != PunishmentType.IP_BAN) {
+                        names.put(punishment.getTargetId(), entry.getName());
+                    }
+                }
+
+                if (batch.size() >= batchSize) {
+                    int inserted = flush(manager, batch, names);
+                    skipped += batch.size() - inserted;
+                    imported += inserted;
+                    batch.clear();
+                    names.clear();
+                    batchKeys.clear();
+                    checkpoint.save(reader.getPosition());
+                }
+
+                if (System.nanoTime() - lastReport >= reportInterval) {
+                    lastReport = System.nanoTime();
+                    send(sender, "command.sp.import-progress", file, reader.getPosition(), imported, skipped);
+                }
+            }
+
+            int inserted = flush(manager, batch, names);
+            skipped += batch.size() - inserted;
+            imported += inserted;
+
+            if (cancelled) {
+                checkpoint.save(reader.getPosition());
+                send(sender, "command.sp.import-cancelled", file, reader.getPosition(), imported, skipped);
+            } else {
+                checkpoint.delete();
+                plugin.getLogger().info("Imported " + imported + " punishments from " + file + " (" + skipped + " skipped)");
+                send(sender, "command.sp.import-complete", file, reader.getPosition(), imported, skipped);
+            }
+        } catch (Exception e) {
+            // The checkpoint still points at the last committed batch
+            plugin.getLogger().severe("Import of " + file + " failed: " + e.getMessage());
+            sendFailure(sender, file, e.getMessage());
+        }
+    }
+
+    private boolean isDuplicate(PunishmentManager manager, Punishment punishment, Set<String> batchKeys) {
+        if (punishment.getType() == PunishmentType.IP_BAN) {
+            return !batchKeys.add(punishment.getBannedIP())
+                    || manager.getRangeBan(IpRange.parse(punishment.getBannedIP())) != null;
+        }
+        return !batchKeys.add(punishment.getTargetId().toString())
+                || manager.hasCachedActive(punishment.getTargetId(), PunishmentType.BAN);
+    }
+
+    private int flush(PunishmentManager manager, List<Punishment> batch, Map<UUID, String> names) throws Exception {
+        if (batch.isEmpty()) return 0;
+        Set<UUID> insertedIds = plugin.getDatabaseManager().importBatch(batch, names);
+        // Rows the database already had keep their stored state, which may be lifted, so only new ones are cached
+        List<Punishment> inserted = new ArrayList<>(insertedIds.size());
+        for (Punishment punishment : batch) {
+            if (insertedIds.contains(punishment.getId())) inserted.add(punishment);
+        }
+        manager.addImported(inserted, names);
+        return inserted.size();
+    }
+
+    private void send(CommandSender sender, String path, File file, long read, long imported, long skipped) {
+        deliver(sender, plugin.getConfigManager().getMessage(path, placeholder -> switch (placeholder) {
+            case FILE -> file.getPath();
+            case READ -> String.valueOf(read);
+            case IMPORTED -> String.valueOf(imported);
+            case SKIPPED -> String.valueOf(skipped);
+            default -> null;
+        }));
+    }
+
+    private void sendFailure(CommandSender sender, File file, String reason) {
+        Placeholders placeholders = placeholder -> switch (placeholder) {
+            case FILE -> file.getPath();
+            case REASON -> String.valueOf(reason);
+            default -> null;
+        };
+        deliver(sender, plugin.getConfigManager().getMessage("command.sp.import-failed", placeholders));
+    }
+
+    // Messages go out on the main thread; a player who left meanwhile just misses them
+    private void deliver(CommandSender sender, String message) {
+        if (!plugin.isEnabled()) return;
+        plugin.getServer().getScheduler().runTask(plugin, () -> {
+            if (sender instanceof Player && !((Player) sender).isOnline()) return;
+            sender.sendMessage(message);
+        });
+    }
+}
@@ -0,0 +1,65 @@
+package com.brekfst.simplepunishments.importer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+// How far an import got, saved after every committed batch; only trusted while the source file is unchanged
+public class ImportCheckpoint {
+    private final File file;
+    private final File source;
+
+    public ImportCheckpoint(File file, File source) {
+        this.file = file;
+        this.source = source;
+    }
+
+    // Entries already committed, or 0 when there is no checkpoint for this exact source file
+    public long load() {
+        if (!file.exists()) return 0;
+
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            return 0;
+        }
+
+        if (!source.getAbsolutePath().equals(properties.getProperty("source"))
+                || !String.valueOf(source.length()).equals(properties.getProperty("length"))
+                || !String.valueOf(source.lastModified()).equals(properties.getProperty("modified"))) {
+            return 0;
+        }
+
+        try {
+            return Long.parseLong(properties.getProperty("position", "0"));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    public void save(long position) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("source", source.getAbsolutePath());
+        properties.setProperty("length", String.valueOf(source.length()));
+        properties.setProperty("modified", String.valueOf(source.lastModified()));
+        properties.setProperty("position", String.valueOf(position));
+
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) parent.mkdirs();
+        File temp = new File(file.getPath() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+            properties.store(writer, "SimplePunishments import progress");
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public void delete() {
+        file.delete();
+    }
+}
@@ -0,0 +1,171 @@
+package com.brekfst.simplepunishments.importer;
+
+import com.brekfst.simplepunishments.SimplePunishments;
+import com.brekfst.simplepunishments.punishments.IpRange;
+import com.brekfst.simplepunishments.punishments.Punishment;
+import com.brekfst.simplepunishments.punishments.PunishmentType;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.UUID;
+
+// Streams banned-players.json / banned-ips.json one entry at a time, so memory stays flat however large the file
+public class VanillaBanReader implements Closeable {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss Z");
+
+    public enum Source {
+        PLAYERS("banned-players.json"),
+        IPS("banned-ips.json");
+
+        private final String defaultFile;
+
+        Source(String defaultFile) {
+            this.defaultFile = defaultFile;
+        }
+
+        public String getDefaultFile() {
+            return defaultFile;
+        }
+    }
+
+    private final SimplePunishments plugin;
+    private final Source source;
+    private final JsonReader reader;
+    private long position;
+
+    public VanillaBanReader(SimplePunishments plugin, Source source, File file) throws IOException {
+        this.plugin = plugin;
+        this.source = source;
+        BufferedReader input = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8);
+        this.reader = new JsonReader(input);
+        this.reader.beginArray();
+    }
+
+    // Entries consumed so far, including malformed ones; this is what a checkpoint records
+    public long getPosition() {
+        return position;
+    }
+
+    public void skip(long entries) throws IOException {
+        while (position < entries && reader.hasNext()) {
+            reader.skipValue();
+            position++;
+        }
+    }
+
+    // Next entry, or null at the end of the file. A malformed entry comes back with a null punishment.
+    public Entry next() throws IOException {
+        if (!reader.hasNext()) return null;
+
+        String uuid = null, name = null, ip = null, created = null, expires = null, reason = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (key) {
+                case "uuid" -> uuid = reader.nextString();
+                case "name" -> name = reader.nextString();
+                case "ip" -> ip = reader.nextString();
+                case "created" -> created = reader.nextString();
+                case "expires" -> expires = reader.nextString();
+                case "reason" -> reason = reader.nextString();
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        position++;
+
+        return new Entry(toPunishment(uuid, ip, created, expires, reason), name);
+    }
+
+    private Punishment toPunishment(String uuid, String ip, String created, String expires, String reason) {
+        UUID targetId;
+        String key;
+        if (source == Source.PLAYERS) {
+            targetId = parseUuid(uuid);
+            if (targetId == null) return null;
+            key = targetId.toString();
+            ip = null;
+        } else {
+            IpRange range = ip != null ? IpRange.parse(ip) : null;
+            if (range == null) return null;
+            targetId = range.getTargetId();
+            ip = range.toString();
+            key = ip;
+        }
+
+        Instant createdAt = parseDate(created);
+        if (createdAt == null) createdAt = Instant.now();
+
+        Long duration = null;
+        if (expires != null && !expires.equalsIgnoreCase("forever")) {
+            Instant expiresAt = parseDate(expires);
+            if (expiresAt == null) return null;
+            duration = Math.max(1, expiresAt.getEpochSecond() - createdAt.getEpochSecond());
+        }
+
+        PunishmentType type = source == Source.IPS ? PunishmentType.IP_BAN
+                : duration == null ? PunishmentType.BAN : PunishmentType.TEMP_BAN;
+
+        // Derived from the entry itself, so importing the same file twice (or resuming) yields the same rows
+        UUID id = UUID.nameUUIDFromBytes(("vanilla:" + source + ":" + key + ":" + createdAt.getEpochSecond())
+                .getBytes(StandardCharsets.UTF_8));
+
+        return new Punishment(plugin, id, targetId, type, reason != null ? reason : "Banned by an operator.",
+                null, createdAt, duration, ip, true);
+    }
+
+    private static UUID parseUuid(String value) {
+        if (value == null) return null;
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static Instant parseDate(String value) {
+        if (value == null) return null;
+        try {
+            return ZonedDateTime.parse(value, DATE_FORMAT).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    public static final class Entry {
+        private final Punishment punishment;
+        private final String name;
+
+        private Entry(Punishment punishment, String name) {
+            this.punishment = punishment;
+            this.name = name;
+        }
+
+        public Punishment getPunishment() {
+            return punishment;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
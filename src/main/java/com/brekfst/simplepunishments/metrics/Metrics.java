@@ -0,0 +1,59 @@
+package com.brekfst.simplepunishments.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// Registry of everything the plugin measures. Hot paths should resolve their counter or histogram
+// once and keep the reference rather than looking it up by name on every call.
+public class Metrics {
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> counterFunctions = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> timers = new ConcurrentHashMap<>();
+    private final Map<String, Supplier<? extends Number>> gauges = new ConcurrentHashMap<>();
+
+    // Names are snake_case; counters end in _total, timers are exported in seconds
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    // For components that already keep their own running total
+    public void counter(String name, LongSupplier supplier) {
+        counterFunctions.put(name, supplier);
+    }
+
+    public LatencyHistogram timer(String name) {
+        return timers.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    public void gauge(String name, Supplier<? extends Number> supplier) {
+        gauges.put(name, supplier);
+    }
+
+    // Sorted copies, so reports list metrics in a stable order
+
+    public Map<String, Long> counters() {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, counter) -> values.put(name, counter.sum()));
+        counterFunctions.forEach((name, counter) -> values.put(name, counter.getAsLong()));
+        return values;
+    }
+
+    public Map<String, LatencyHistogram.Snapshot> timers() {
+        Map<String, LatencyHistogram.Snapshot> values = new TreeMap<>();
+        timers.forEach((name, timer) -> values.put(name, timer.snapshot()));
+        return values;
+    }
+
+    public Map<String, Number> gauges() {
+        Map<String, Number> values = new TreeMap<>();
+        gauges.forEach((name, gauge) -> {
+            Number value = gauge.get();
+            if (value != null) values.put(name, value);
+        });
+        return values;
+    }
+}
@@ -0,0 +1,135 @@
+package com.brekfst.simplepunishments.metrics;
+
+import com.brekfst.simplepunishments.SimplePunishments;
+import com.google.gson.stream.JsonWriter;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Map;
+
+// Periodically writes the registry to disk for a local scraper, e.g. the node exporter's textfile
+// collector. Files are written to a temp name and moved into place so a reader never sees half a file.
+public class MetricsExporter {
+    private static final String PREFIX = "simplepunishments_";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final SimplePunishments plugin;
+    private final Metrics metrics;
+    private BukkitTask task;
+
+    public MetricsExporter(SimplePunishments plugin, Metrics metrics) {
+        this.plugin = plugin;
+        this.metrics = metrics;
+    }
+
+    public void start() {
+        if (!plugin.getConfig().getBoolean("metrics.export.enabled", false)) return;
+
+        long intervalTicks = Math.max(1, plugin.getConfig().getLong("metrics.export.interval", 15)) * 20L;
+        task = plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, this::export, intervalTicks, intervalTicks);
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    private void export() {
+        String format = plugin.getConfig().getString("metrics.export.format", "PROMETHEUS").toUpperCase(Locale.ROOT);
+        try {
+            if (format.equals("PROMETHEUS") || format.equals("BOTH")) {
+                writeAtomically(resolve("metrics.export.prometheus-file", "metrics.prom"), this::writePrometheus);
+            }
+            if (format.equals("JSON") || format.equals("BOTH")) {
+                writeAtomically(resolve("metrics.export.json-file", "metrics.json"), this::writeJson);
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to export metrics: " + e.getMessage());
+        }
+    }
+
+    private File resolve(String path, String defaultName) {
+        File file = new File(plugin.getConfig().getString(path, defaultName));
+        return file.isAbsolute() ? file : new File(plugin.getDataFolder(), file.getPath());
+    }
+
+    private void writeAtomically(File file, Body body) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.UTF_8))) {
+            body.write(writer);
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    void writePrometheus(Writer out) throws IOException {
+        for (Map.Entry<String, Long> counter : metrics.counters().entrySet()) {
+            String name = PREFIX + counter.getKey();
+            out.write("# TYPE " + name + " counter\n");
+            out.write(name + " " + counter.getValue() + "\n");
+        }
+        for (Map.Entry<String, Number> gauge : metrics.gauges().entrySet()) {
+            String name = PREFIX + gauge.getKey();
+            out.write("# TYPE " + name + " gauge\n");
+            out.write(name + " " + gauge.getValue() + "\n");
+        }
+        for (Map.Entry<String, LatencyHistogram.Snapshot> timer : metrics.timers().entrySet()) {
+            String name = PREFIX + timer.getKey() + "_seconds";
+            LatencyHistogram.Snapshot snapshot = timer.getValue();
+            out.write("# TYPE " + name + " summary\n");
+            for (double quantile : QUANTILES) {
+                out.write(name + "{quantile=\"" + quantile + "\"} " + seconds(snapshot.getValueAt(quantile)) + "\n");
+            }
+            out.write(name + "_sum " + seconds(snapshot.getSum()) + "\n");
+            out.write(name + "_count " + snapshot.getCount() + "\n");
+        }
+    }
+
+    void writeJson(Writer out) throws IOException {
+        JsonWriter json = new JsonWriter(out);
+        json.beginObject();
+        json.name("timestamp").value(System.currentTimeMillis());
+
+        json.name("counters").beginObject();
+        for (Map.Entry<String, Long> counter : metrics.counters().entrySet()) {
+            json.name(counter.getKey()).value(counter.getValue());
+        }
+        json.endObject();
+
+        json.name("gauges").beginObject();
+        for (Map.Entry<String, Number> gauge : metrics.gauges().entrySet()) {
+            json.name(gauge.getKey()).value(gauge.getValue());
+        }
+        json.endObject();
+
+        json.name("timers").beginObject();
+        for (Map.Entry<String, LatencyHistogram.Snapshot> timer : metrics.timers().entrySet()) {
+            LatencyHistogram.Snapshot snapshot = timer.getValue();
+            json.name(timer.getKey()).beginObject();
+            json.name("count").value(snapshot.getCount());
+            json.name("mean_ns").value((long) snapshot.getMean());
+            json.name("p50_ns").value(snapshot.getValueAt(0.5));
+            json.name("p90_ns").value(snapshot.getValueAt(0.9));
+            json.name("p99_ns").value(snapshot.getValueAt(0.99));
+            json.name("max_ns").value(snapshot.getMax());
+            json.endObject();
+        }
+        json.endObject();
+
+        json.endObject();
+        json.flush();
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1_000_000_000.0);
+    }
+
+    private interface Body {
+        void write(Writer out) throws IOException;
+    }
+}
@@ -0,0 +1,273 @@
+package com.brekfst.simplepunishments.players;
+
+import com.brekfst.simplepunishments.SimplePunishments;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// UUID <-> name mapping owned by the plugin, filled on every login and backed by the players table.
+// The main thread only ever reads the in-memory caches; misses there are resolved asynchronously.
+public class PlayerDirectory {
+    private final SimplePunishments plugin;
+    private final LruCache<UUID, String> names;
+    private final LruCache<String, UUID> ids;
+    private final Set<UUID> pendingLoads = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder cacheHits;
+    private final LongAdder cacheMisses;
+
+    public PlayerDirectory(SimplePunishments plugin) {
+        this.plugin = plugin;
+        this.cacheHits = plugin.getMetrics().counter("player_cache_hits_total");
+        this.cacheMisses = plugin.getMetrics().counter("player_cache_misses_total");
+        int capacity = Math.max(16, plugin.getConfig().getInt("players.cache-size", 10000));
+        this.names = new LruCache<>(capacity);
+        this.ids = new LruCache<>(capacity);
+
+        // Players already online after a reload never pass through pre-login
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            cache(player.getUniqueId(), player.getName());
+        }
+    }
+
+    // Called from pre-login, off the main thread; only writes when the name is new or changed
+    public void record(UUID playerId, String name) {
+        String previous = names.get(playerId);
+        cache(playerId, name);
+        if (!name.equals(previous)) {
+            plugin.getDatabaseManager().savePlayer(playerId, name);
+        }
+    }
+
+    // Never blocks on the main thread: an unknown name is loaded in the background and null returned
+    public String getName(UUID playerId) {
+        String name = names.get(playerId);
+        if (name != null) {
+            cacheHits.increment();
+            return name;
+        }
+        cacheMisses.increment();
+
+        Player online = plugin.getServer().getPlayer(playerId);
+        if (online != null) {
+            cache(playerId, online.getName());
+            return online.getName();
+        }
+
+        if (plugin.getServer().isPrimaryThread()) {
+            if (pendingLoads.add(playerId)) {
+                plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+                    try {
+                        loadName(playerId);
+                    } finally {
+                        pendingLoads.remove(playerId);
+                    }
+                });
+            }
+            return null;
+        }
+        return loadName(playerId);
+    }
+
+    // For messages: while the name is still loading, the server's own user cache or else the raw id stands in
+    public String getDisplayName(UUID playerId) {
+        String name = getName(playerId);
+        if (name == null) {
+            name = knownToServer(playerId);
+        }
+        return name != null ? name : playerId.toString();
+    }
+
+    // Issuer column in messages: console for no issuer, the raw id when the name is not known yet
+    public String getIssuerName(UUID issuerId) {
+        if (issuerId == null) {
+            return "Console";
+        }
+        return getDisplayName(issuerId);
+    }
+
+    public CompletableFuture<String> resolveName(UUID playerId) {
+        String cached = names.get(playerId);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return supplyAsync(() -> {
+            String name = getName(playerId);
+            return name != null ? name : knownToServer(playerId);
+        });
+    }
+
+    // One query per chunk of ids instead of one per player, for bulk work such as the startup load
+    public CompletableFuture<Map<UUID, String>> resolveNames(Collection<UUID> playerIds) {
+        return supplyAsync(() -> {
+            Map<UUID, String> resolved = new HashMap<>();
+            List<UUID> missing = new ArrayList<>();
+            for (UUID playerId : playerIds) {
+                String cached = names.get(playerId);
+                if (cached != null) {
+                    resolved.put(playerId, cached);
+                } else {
+                    missing.add(playerId);
+                }
+            }
+
+            Map<UUID, String> loaded = plugin.getDatabaseManager().loadPlayerNames(missing);
+            loaded.forEach(this::cache);
+            resolved.putAll(loaded);
+            for (UUID playerId : missing) {
+                if (!loaded.containsKey(playerId)) {
+                    String name = knownToServer(playerId);
+                    if (name != null) resolved.put(playerId, name);
+                }
+            }
+            return resolved;
+        });
+    }
+
+    public CompletableFuture<PlayerProfile> lookup(String name) {
+        Player online = plugin.getServer().getPlayerExact(name);
+        if (online != null) {
+            return CompletableFuture.completedFuture(new PlayerProfile(online.getUniqueId(), online.getName()));
+        }
+
+        UUID cached = ids.get(name.toLowerCase(Locale.ROOT));
+        if (cached != null) {
+            String cachedName = names.get(cached);
+            return CompletableFuture.completedFuture(new PlayerProfile(cached, cachedName != null ? cachedName : name));
+        }
+
+        return supplyAsync(() -> loadProfile(name));
+    }
+
+    // Resolves many names or UUID strings with one query per chunk; inputs that match nobody are left out.
+    // Call from the main thread: online players and cached names are answered before going async.
+    public CompletableFuture<Map<String, PlayerProfile>> lookupAll(Collection<String> inputs) {
+        Map<String, PlayerProfile> resolved = new LinkedHashMap<>();
+        Map<String, String> missing = new LinkedHashMap<>();
+        for (String input : inputs) {
+            UUID playerId = parseUuid(input);
+            if (playerId != null) {
+                String name = names.get(playerId);
+                resolved.put(input, new PlayerProfile(playerId, name != null ? name : input));
+                continue;
+            }
+
+            Player online = plugin.getServer().getPlayerExact(input);
+            UUID cached = ids.get(input.toLowerCase(Locale.ROOT));
+            if (online != null) {
+                resolved.put(input, new PlayerProfile(online.getUniqueId(), online.getName()));
+            } else if (cached != null) {
+                String cachedName = names.get(cached);
+                resolved.put(input, new PlayerProfile(cached, cachedName != null ? cachedName : input));
+            } else {
+                missing.put(input.toLowerCase(Locale.ROOT), input);
+            }
+        }
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(resolved);
+        }
+
+        return supplyAsync(() -> {
+            Map<String, PlayerProfile> loaded = plugin.getDatabaseManager().loadPlayerProfiles(missing.keySet());
+            for (Map.Entry<String, String> entry : missing.entrySet()) {
+                PlayerProfile profile = loaded.get(entry.getKey());
+                if (profile != null) {
+                    cache(profile.getUniqueId(), profile.getName());
+                } else {
+                    // Only players from before the directory existed get here, one server lookup each
+                    profile = loadProfile(entry.getValue());
+                }
+                if (profile != null) {
+                    resolved.put(entry.getValue(), profile);
+                }
+            }
+            return resolved;
+        });
+    }
+
+    private static UUID parseUuid(String value) {
+        if (value.length() != 36) return null;
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            try {
+                future.complete(supplier.get());
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    private PlayerProfile loadProfile(String name) {
+        UUID playerId = plugin.getDatabaseManager().loadPlayerId(name);
+        if (playerId != null) {
+            String stored = loadName(playerId);
+            return new PlayerProfile(playerId, stored != null ? stored : name);
+        }
+
+        // Players who joined before the directory existed are only known to the server;
+        // this lookup may hit disk or the network, which is fine here on an async thread
+        OfflinePlayer offline = plugin.getServer().getOfflinePlayer(name);
+        if (!offline.hasPlayedBefore() || offline.getName() == null) {
+            return null;
+        }
+        record(offline.getUniqueId(), offline.getName());
+        return new PlayerProfile(offline.getUniqueId(), offline.getName());
+    }
+
+    private String loadName(UUID playerId) {
+        String name = plugin.getDatabaseManager().loadPlayerName(playerId);
+        if (name != null) {
+            cache(playerId, name);
+        }
+        return name;
+    }
+
+    // Players punished before the players table existed are only in the server's user cache until they log in
+    private String knownToServer(UUID playerId) {
+        String name = plugin.getServer().getOfflinePlayer(playerId).getName();
+        if (name != null) {
+            cache(playerId, name);
+        }
+        return name;
+    }
+
+    private void cache(UUID playerId, String name) {
+        names.put(playerId, name);
+        ids.put(name.toLowerCase(Locale.ROOT), playerId);
+    }
+
+    private static final class LruCache<K, V> {
+        private final Map<K, V> map;
+
+        private LruCache(int capacity) {
+            this.map = new LinkedHashMap<>(capacity * 4 / 3 + 1, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        private synchronized V get(K key) {
+            return map.get(key);
+        }
+
+        private synchronized void put(K key, V value) {
+            map.put(key, value);
+        }
+    }
+}
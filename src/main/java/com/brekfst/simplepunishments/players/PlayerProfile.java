@@ -0,0 +1,21 @@
+package com.brekfst.simplepunishments.players;
+
+import java.util.UUID;
+
+public final class PlayerProfile {
+    private final UUID uniqueId;
+    private final String name;
+
+    public PlayerProfile(UUID uniqueId, String name) {
+        this.uniqueId = uniqueId;
+        this.name = name;
+    }
+
+    public UUID getUniqueId() {
+        return uniqueId;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
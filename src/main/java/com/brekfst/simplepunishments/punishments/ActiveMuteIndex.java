@@ -0,0 +1,75 @@
+package com.brekfst.simplepunishments.punishments;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class ActiveMuteIndex {
+    private static final long PERMANENT = Long.MAX_VALUE;
+
+    private final ConcurrentHashMap<UUID, Entry> mutes = new ConcurrentHashMap<>();
+
+    public void put(Punishment mute) {
+        if (!isMute(mute) || !mute.isActive()) return;
+        mutes.put(mute.getTargetId(), new Entry(mute, expiresAt(mute)));
+    }
+
+    public void remove(UUID targetId) {
+        mutes.remove(targetId);
+    }
+
+    // Only drops the entry if it still belongs to the given mute
+    public void remove(UUID targetId, UUID punishmentId) {
+        mutes.computeIfPresent(targetId, (id, entry) ->
+                entry.punishment.getId().equals(punishmentId) ? null : entry);
+    }
+
+    // Replaces whatever is indexed for the player with the active mute from a freshly loaded history
+    public void refresh(UUID targetId, List<Punishment> punishments) {
+        for (Punishment punishment : punishments) {
+            if (isMute(punishment) && punishment.isActive() && !punishment.isExpired()) {
+                put(punishment);
+                return;
+            }
+        }
+        mutes.remove(targetId);
+    }
+
+    // Chat hot path: a single map read and a clock compare, no allocation
+    public Punishment getActiveMute(UUID targetId) {
+        Entry entry = mutes.get(targetId);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() >= entry.expiresAt) {
+            mutes.remove(targetId, entry);
+            return null;
+        }
+        return entry.punishment;
+    }
+
+    public void clear() {
+        mutes.clear();
+    }
+
+    private static boolean isMute(Punishment punishment) {
+        return punishment.getType() == PunishmentType.MUTE || punishment.getType() == PunishmentType.TEMP_MUTE;
+    }
+
+    private static long expiresAt(Punishment punishment) {
+        if (punishment.isPermanent()) {
+            return PERMANENT;
+        }
+        return punishment.getCreatedAt().toEpochMilli() + punishment.getDuration() * 1000L;
+    }
+
+    private static final class Entry {
+        private final Punishment punishment;
+        private final long expiresAt;
+
+        private Entry(Punishment punishment, long expiresAt) {
+            this.punishment = punishment;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.brekfst.simplepunishments.punishments;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Names of players with an active ban or mute, for /unban and /unmute completion.
+// Entries are keyed by punishment id so removal needs neither the name nor the original object.
+public class ActiveNameIndex {
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NameTrie bans = new NameTrie();
+    private final NameTrie mutes = new NameTrie();
+    private final Map<UUID, Entry> entries = new HashMap<>();
+
+    public void add(Punishment punishment, String name) {
+        NameTrie trie = trieFor(punishment);
+        if (trie == null || name == null) return;
+
+        String key = name.toLowerCase(Locale.ROOT);
+        lock.writeLock().lock();
+        try {
+            // Checked under the lock so a deactivation racing a late add cannot leave a stale name behind
+            if (!punishment.isActive() || entries.containsKey(punishment.getId())) return;
+            entries.put(punishment.getId(), new Entry(trie, key));
+            trie.add(key, name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(UUID punishmentId) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.remove(punishmentId);
+            if (entry != null) {
+                entry.trie.remove(entry.key);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // BAN also covers temp bans and player IP bans, MUTE covers temp mutes
+    public List<String> complete(PunishmentType type, String prefix, int limit) {
+        NameTrie trie = type == PunishmentType.MUTE ? mutes : bans;
+        lock.readLock().lock();
+        try {
+            return trie.complete(prefix.toLowerCase(Locale.ROOT), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            bans.clear();
+            mutes.clear();
+            entries.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    static boolean isIndexed(Punishment punishment) {
+        return switch (punishment.getType()) {
+            case BAN, TEMP_BAN, MUTE, TEMP_MUTE -> true;
+            case IP_BAN -> !IpRange.isRangeTarget(punishment.getTargetId());
+            default -> false;
+        };
+    }
+
+    private NameTrie trieFor(Punishment punishment) {
+        if (!isIndexed(punishment)) return null;
+        return punishment.getType() == PunishmentType.MUTE || punishment.getType() == PunishmentType.TEMP_MUTE
+                ? mutes : bans;
+    }
+
+    private static final class Entry {
+        private final NameTrie trie;
+        private final String key;
+
+        private Entry(NameTrie trie, String key) {
+            this.trie = trie;
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.brekfst.simplepunishments.punishments;
+
+import com.brekfst.simplepunishments.SimplePunishments;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+// Binary copy of the active set, so a restart can fill its caches from one sequential read of a mapped file
+// and only ask the database for rows written since. Layout: header (magic, version, source, time taken,
+// type names, distinct reasons), one PunishmentCodec record per punishment, then a CRC32 of everything before it.
+public final class ActiveSnapshot {
+    private static final int MAGIC = 0x53505331; // "SPS1"
+    private static final int VERSION = 1;
+
+    private final Instant takenAt;
+    private final List<Punishment> punishments;
+
+    private ActiveSnapshot(Instant takenAt, List<Punishment> punishments) {
+        this.takenAt = takenAt;
+        this.punishments = punishments;
+    }
+
+    public Instant getTakenAt() {
+        return takenAt;
+    }
+
+    public List<Punishment> getPunishments() {
+        return punishments;
+    }
+
+    // Written beside the target and moved over it, so a crash mid-write leaves the previous snapshot intact
+    public static void write(File file, String source, Instant takenAt, Collection<Punishment> punishments) throws IOException {
+        Files.createDirectories(file.getParentFile().toPath());
+        File temp = new File(file.getPath() + ".tmp");
+
+        CRC32 crc = new CRC32();
+        try (OutputStream stream = Files.newOutputStream(temp.toPath())) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(stream, crc), 64 * 1024));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            PunishmentCodec.writeString(out, source);
+            out.writeLong(takenAt.toEpochMilli());
+
+            // Types are stored by ordinal; the names let a reader detect a changed enum
+            PunishmentType[] types = PunishmentType.values();
+            out.writeByte(types.length);
+            for (PunishmentType type : types) {
+                PunishmentCodec.writeString(out, type.name());
+            }
+
+            // Reasons repeat heavily, so each is stored once and decoded into one shared String
+            Map<String, Integer> reasons = new LinkedHashMap<>();
+            for (Punishment punishment : punishments) {
+                if (punishment.getReason() != null) {
+                    reasons.putIfAbsent(punishment.getReason(), reasons.size());
+                }
+            }
+            out.writeInt(reasons.size());
+            for (String reason : reasons.keySet()) {
+                PunishmentCodec.writeString(out, reason);
+            }
+
+            out.writeInt(punishments.size());
+            for (Punishment punishment : punishments) {
+                PunishmentCodec.write(out, punishment, reasons);
+            }
+            out.flush();
+
+            // The checksum covers everything above and is written outside the checked stream
+            new DataOutputStream(stream).writeLong(crc.getValue());
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Throws when the file is damaged, from another format version or from another database; the caller
+    // then falls back to a full load
+    public static ActiveSnapshot read(SimplePunishments plugin, File file, String source) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 8 || size > Integer.MAX_VALUE) {
+                throw new IOException("Unexpected snapshot size " + size);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().limit((int) size - 8));
+            if (crc.getValue() != buffer.getLong((int) size - 8)) {
+                throw new IOException("Snapshot checksum mismatch");
+            }
+            buffer.limit((int) size - 8);
+
+            if (buffer.getInt() != MAGIC) throw new IOException("Not a snapshot file");
+            int version = buffer.getInt();
+            if (version != VERSION) throw new IOException("Unsupported snapshot version " + version);
+            String snapshotSource = PunishmentCodec.readString(buffer);
+            if (!snapshotSource.equals(source)) throw new IOException("Snapshot was taken from " + snapshotSource);
+            Instant takenAt = Instant.ofEpochMilli(buffer.getLong());
+
+            PunishmentType[] types = PunishmentType.values();
+            int typeCount = buffer.get() & 0xFF;
+            if (typeCount != types.length) throw new IOException("Snapshot has different punishment types");
+            for (PunishmentType type : types) {
+                if (!PunishmentCodec.readString(buffer).equals(type.name())) throw new IOException("Snapshot has different punishment types");
+            }
+
+            String[] reasons = new String[buffer.getInt()];
+            for (int i = 0; i < reasons.length; i++) {
+                reasons[i] = PunishmentCodec.readString(buffer);
+            }
+
+            int count = buffer.getInt();
+            List<Punishment> punishments = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                punishments.add(PunishmentCodec.read(plugin, buffer, types, reasons, true));
+            }
+            return new ActiveSnapshot(takenAt, punishments);
+        } catch (RuntimeException e) {
+            // A truncated buffer or a bad ordinal that somehow passed the checksum
+            throw new IOException("Corrupt snapshot: " + e, e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.brekfst.simplepunishments.punishments;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Loads the active set in disjoint target_id ranges on a small pool, handing each slice over as soon as it
+// arrives. UUID strings are lower-case hex, so splitting on the first two characters gives even ranges.
+// The pool stays up across retries until the owner shuts it down.
+public class CacheWarmUp {
+    private final ExecutorService executor;
+    private final int ranges;
+
+    public CacheWarmUp(int threads, int ranges) {
+        this.ranges = Math.max(1, Math.min(256, ranges));
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), task -> {
+            Thread thread = new Thread(task, "SimplePunishments-WarmUp-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Completes once every range is loaded and handed to onSlice, or exceptionally if any range failed
+    public CompletableFuture<Void> start(BiFunction<String, String, List<Punishment>> loader,
+                                         Consumer<List<Punishment>> onSlice) {
+        List<CompletableFuture<Void>> slices = new ArrayList<>(ranges);
+        for (int i = 0; i < ranges; i++) {
+            // The outer bounds stay open so targets that are not lower-case UUIDs are still covered
+            String from = i == 0 ? null : bound(i);
+            String to = i == ranges - 1 ? null : bound(i + 1);
+            slices.add(CompletableFuture.runAsync(() -> onSlice.accept(loader.apply(from, to)), executor));
+        }
+
+        return CompletableFuture.allOf(slices.toArray(new CompletableFuture[0]));
+    }
+
+    // After a snapshot restore only the rows written since are read, in one query
+    public CompletableFuture<Void> catchUp(Supplier<List<Punishment>> loader, Consumer<List<Punishment>> onChanges) {
+        return run(() -> onChanges.accept(loader.get()));
+    }
+
+    public CompletableFuture<Void> run(Runnable task) {
+        return CompletableFuture.runAsync(task, executor);
+    }
+
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+
+    // Once the load is complete; may be called from one of the pool's own threads
+    public void finish() {
+        executor.shutdown();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private String bound(int index) {
+        return String.format("%02x", index * 256 / ranges);
+    }
+}
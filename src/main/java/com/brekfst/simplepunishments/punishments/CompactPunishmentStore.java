@@ -0,0 +1,396 @@
+package com.brekfst.simplepunishments.punishments;
+
+import com.brekfst.simplepunishments.SimplePunishments;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+
+// Column-oriented store for very large histories. Every field lives in a primitive array indexed by row:
+// UUIDs as two longs, the type as a byte, timestamps as epoch millis and reasons/IPs as dictionary codes.
+// Punishment objects only exist while a caller is holding them.
+public class CompactPunishmentStore implements PunishmentStore {
+    private static final int INITIAL_ROWS = 1024;
+    private static final int INITIAL_SLOTS = 1024;
+    private static final long NO_DURATION = Long.MIN_VALUE;
+    private static final byte ACTIVE = 1;
+    private static final byte HAS_ISSUER = 2;
+    private static final byte DELETED = 4;
+    private static final PunishmentType[] TYPES = PunishmentType.values();
+
+    private final SimplePunishments plugin;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Row columns
+    private long[] idMsb, idLsb, targetMsb, targetLsb, issuerMsb, issuerLsb, createdAt, duration;
+    private byte[] type, flags;
+    private int[] reason, ip, nextRow;
+    private int rows;
+    private int deletedRows;
+
+    // Open-addressed table from target UUID to the first and last row of that player's chain
+    private long[] slotMsb, slotLsb;
+    private int[] slotHead, slotTail, slotLive;
+    private int usedSlots;
+    private int liveTargets;
+
+    private StringDictionary reasons;
+    private StringDictionary ips;
+
+    public CompactPunishmentStore(SimplePunishments plugin) {
+        this.plugin = plugin;
+        reset();
+    }
+
+    @Override
+    public List<Punishment> get(UUID targetId) {
+        lock.readLock().lock();
+        try {
+            int slot = findSlot(targetId.getMostSignificantBits(), targetId.getLeastSignificantBits());
+            if (slot < 0 || slotLive[slot] == 0) return List.of();
+
+            List<Punishment> punishments = new ArrayList<>(slotLive[slot]);
+            for (int row = slotHead[slot]; row >= 0; row = nextRow[row]) {
+                if ((flags[row] & DELETED) == 0) punishments.add(materialize(row));
+            }
+            return Collections.unmodifiableList(punishments);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void add(Punishment punishment) {
+        lock.writeLock().lock();
+        try {
+            appendRow(punishment);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Punishment addIfAbsent(Punishment punishment) {
+        lock.writeLock().lock();
+        try {
+            int row = findRow(punishment.getTargetId(), punishment.getId());
+            if (row >= 0) return materialize(row);
+            appendRow(punishment);
+            return punishment;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Punishment> update(UUID targetId, UnaryOperator<List<Punishment>> function) {
+        lock.writeLock().lock();
+        try {
+            int slot = findSlot(targetId.getMostSignificantBits(), targetId.getLeastSignificantBits());
+            List<Punishment> current = new ArrayList<>();
+            if (slot >= 0) {
+                for (int row = slotHead[slot]; row >= 0; row = nextRow[row]) {
+                    if ((flags[row] & DELETED) == 0) current.add(materialize(row));
+                }
+            }
+
+            List<Punishment> updated = function.apply(Collections.unmodifiableList(current));
+            if (updated == null) updated = List.of();
+
+            // Rows the function dropped become tombstones, kept rows take the new active flag
+            Set<UUID> kept = new HashSet<>();
+            for (Punishment punishment : updated) kept.add(punishment.getId());
+            if (slot >= 0) {
+                for (int row = slotHead[slot]; row >= 0; row = nextRow[row]) {
+                    if ((flags[row] & DELETED) == 0 && !kept.contains(new UUID(idMsb[row], idLsb[row]))) {
+                        deleteRow(slot, row);
+                    }
+                }
+            }
+            for (Punishment punishment : updated) {
+                int row = findRow(targetId, punishment.getId());
+                if (row >= 0) {
+                    setActive(row, punishment.isActive());
+                } else {
+                    appendRow(punishment);
+                }
+            }
+
+            if (deletedRows > INITIAL_ROWS && deletedRows > rows / 2) {
+                rebuild();
+            }
+            return List.copyOf(updated);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void addAll(Collection<Punishment> punishments) {
+        lock.writeLock().lock();
+        try {
+            for (Punishment punishment : punishments) appendRow(punishment);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void markInactive(Punishment punishment) {
+        lock.writeLock().lock();
+        try {
+            int row = findRow(punishment.getTargetId(), punishment.getId());
+            if (row >= 0) setActive(row, false);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Punishment> snapshot() {
+        lock.readLock().lock();
+        try {
+            List<Punishment> all = new ArrayList<>(rows - deletedRows);
+            for (int row = 0; row < rows; row++) {
+                if ((flags[row] & DELETED) == 0) all.add(materialize(row));
+            }
+            return all;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            reset();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int playerCount() {
+        lock.readLock().lock();
+        try {
+            return liveTargets;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int rowCount() {
+        lock.readLock().lock();
+        try {
+            return rows - deletedRows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void reset() {
+        idMsb = new long[INITIAL_ROWS];
+        idLsb = new long[INITIAL_ROWS];
+        targetMsb = new long[INITIAL_ROWS];
+        targetLsb = new long[INITIAL_ROWS];
+        issuerMsb = new long[INITIAL_ROWS];
+        issuerLsb = new long[INITIAL_ROWS];
+        createdAt = new long[INITIAL_ROWS];
+        duration = new long[INITIAL_ROWS];
+        type = new byte[INITIAL_ROWS];
+        flags = new byte[INITIAL_ROWS];
+        reason = new int[INITIAL_ROWS];
+        ip = new int[INITIAL_ROWS];
+        nextRow = new int[INITIAL_ROWS];
+        rows = 0;
+        deletedRows = 0;
+
+        slotMsb = new long[INITIAL_SLOTS];
+        slotLsb = new long[INITIAL_SLOTS];
+        slotHead = new int[INITIAL_SLOTS];
+        slotTail = new int[INITIAL_SLOTS];
+        slotLive = new int[INITIAL_SLOTS];
+        Arrays.fill(slotHead, -1);
+        usedSlots = 0;
+        liveTargets = 0;
+
+        reasons = new StringDictionary();
+        ips = new StringDictionary();
+    }
+
+    private void appendRow(Punishment punishment) {
+        if (rows == idMsb.length) growRows();
+
+        int row = rows++;
+        UUID id = punishment.getId();
+        UUID target = punishment.getTargetId();
+        UUID issuer = punishment.getIssuerId();
+
+        idMsb[row] = id.getMostSignificantBits();
+        idLsb[row] = id.getLeastSignificantBits();
+        targetMsb[row] = target.getMostSignificantBits();
+        targetLsb[row] = target.getLeastSignificantBits();
+        issuerMsb[row] = issuer != null ? issuer.getMostSignificantBits() : 0;
+        issuerLsb[row] = issuer != null ? issuer.getLeastSignificantBits() : 0;
+        createdAt[row] = punishment.getCreatedAt().toEpochMilli();
+        duration[row] = punishment.getDuration() != null ? punishment.getDuration() : NO_DURATION;
+        type[row] = (byte) punishment.getType().ordinal();
+        flags[row] = (byte) ((punishment.isActive() ? ACTIVE : 0) | (issuer != null ? HAS_ISSUER : 0));
+        reason[row] = reasons.encode(punishment.getReason());
+        ip[row] = ips.encode(punishment.getBannedIP());
+        nextRow[row] = -1;
+
+        int slot = findOrCreateSlot(targetMsb[row], targetLsb[row]);
+        if (slotHead[slot] < 0) {
+            slotHead[slot] = row;
+        } else {
+            nextRow[slotTail[slot]] = row;
+        }
+        slotTail[slot] = row;
+        if (slotLive[slot]++ == 0) liveTargets++;
+    }
+
+    private Punishment materialize(int row) {
+        return new Punishment(
+                plugin,
+                new UUID(idMsb[row], idLsb[row]),
+                new UUID(targetMsb[row], targetLsb[row]),
+                TYPES[type[row]],
+                reasons.decode(reason[row]),
+                (flags[row] & HAS_ISSUER) != 0 ? new UUID(issuerMsb[row], issuerLsb[row]) : null,
+                Instant.ofEpochMilli(createdAt[row]),
+                duration[row] != NO_DURATION ? duration[row] : null,
+                ips.decode(ip[row]),
+                (flags[row] & ACTIVE) != 0
+        );
+    }
+
+    private void setActive(int row, boolean active) {
+        flags[row] = (byte) (active ? flags[row] | ACTIVE : flags[row] & ~ACTIVE);
+    }
+
+    private void deleteRow(int slot, int row) {
+        flags[row] |= DELETED;
+        deletedRows++;
+        if (--slotLive[slot] == 0) liveTargets--;
+    }
+
+    private int findRow(UUID targetId, UUID id) {
+        int slot = findSlot(targetId.getMostSignificantBits(), targetId.getLeastSignificantBits());
+        if (slot < 0) return -1;
+
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        for (int row = slotHead[slot]; row >= 0; row = nextRow[row]) {
+            if (idMsb[row] == msb && idLsb[row] == lsb && (flags[row] & DELETED) == 0) return row;
+        }
+        return -1;
+    }
+
+    private int findSlot(long msb, long lsb) {
+        int mask = slotHead.length - 1;
+        for (int slot = hash(msb, lsb) & mask; slotHead[slot] >= 0; slot = (slot + 1) & mask) {
+            if (slotMsb[slot] == msb && slotLsb[slot] == lsb) return slot;
+        }
+        return -1;
+    }
+
+    private int findOrCreateSlot(long msb, long lsb) {
+        int existing = findSlot(msb, lsb);
+        if (existing >= 0) return existing;
+
+        // Keep the table at most half full so probe chains stay short
+        if ((usedSlots + 1) * 2 > slotHead.length) growSlots();
+
+        int mask = slotHead.length - 1;
+        int slot = hash(msb, lsb) & mask;
+        while (slotHead[slot] >= 0) slot = (slot + 1) & mask;
+
+        slotMsb[slot] = msb;
+        slotLsb[slot] = lsb;
+        usedSlots++;
+        return slot;
+    }
+
+    private void growRows() {
+        int capacity = idMsb.length * 2;
+        idMsb = Arrays.copyOf(idMsb, capacity);
+        idLsb = Arrays.copyOf(idLsb, capacity);
+        targetMsb = Arrays.copyOf(targetMsb, capacity);
+        targetLsb = Arrays.copyOf(targetLsb, capacity);
+        issuerMsb = Arrays.copyOf(issuerMsb, capacity);
+        issuerLsb = Arrays.copyOf(issuerLsb, capacity);
+        createdAt = Arrays.copyOf(createdAt, capacity);
+        duration = Arrays.copyOf(duration, capacity);
+        type = Arrays.copyOf(type, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        reason = Arrays.copyOf(reason, capacity);
+        ip = Arrays.copyOf(ip, capacity);
+        nextRow = Arrays.copyOf(nextRow, capacity);
+    }
+
+    private void growSlots() {
+        long[] oldMsb = slotMsb;
+        long[] oldLsb = slotLsb;
+        int[] oldHead = slotHead;
+        int[] oldTail = slotTail;
+        int[] oldLive = slotLive;
+
+        int capacity = oldHead.length * 2;
+        slotMsb = new long[capacity];
+        slotLsb = new long[capacity];
+        slotHead = new int[capacity];
+        slotTail = new int[capacity];
+        slotLive = new int[capacity];
+        Arrays.fill(slotHead, -1);
+
+        int mask = capacity - 1;
+        for (int old = 0; old < oldHead.length; old++) {
+            if (oldHead[old] < 0) continue;
+            int slot = hash(oldMsb[old], oldLsb[old]) & mask;
+            while (slotHead[slot] >= 0) slot = (slot + 1) & mask;
+            slotMsb[slot] = oldMsb[old];
+            slotLsb[slot] = oldLsb[old];
+            slotHead[slot] = oldHead[old];
+            slotTail[slot] = oldTail[old];
+            slotLive[slot] = oldLive[old];
+        }
+    }
+
+    // Drops tombstoned rows and unused dictionary entries by re-encoding the live rows
+    private void rebuild() {
+        List<Punishment> live = new ArrayList<>(rows - deletedRows);
+        for (int row = 0; row < rows; row++) {
+            if ((flags[row] & DELETED) == 0) live.add(materialize(row));
+        }
+        reset();
+        for (Punishment punishment : live) appendRow(punishment);
+    }
+
+    private static int hash(long msb, long lsb) {
+        long h = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static final class StringDictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        private int encode(String value) {
+            if (value == null) return -1;
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                values.add(value);
+                codes.put(value, code);
+            }
+            return code;
+        }
+
+        private String decode(int code) {
+            return code < 0 ? null : values.get(code);
+        }
+    }
+}
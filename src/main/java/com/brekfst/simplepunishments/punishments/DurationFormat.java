@@ -0,0 +1,34 @@
+package com.brekfst.simplepunishments.punishments;
+
+// Short duration strings as typed in commands: 30s, 10m, 6h, 7d, 2w
+public final class DurationFormat {
+
+    private DurationFormat() {
+    }
+
+    // Seconds, or -1 when the input is not a valid duration
+    public static long parse(String input) {
+        try {
+            long amount = Long.parseLong(input.substring(0, input.length() - 1));
+            char unit = input.charAt(input.length() - 1);
+            return switch (Character.toLowerCase(unit)) {
+                case 's' -> amount;
+                case 'm' -> amount * 60;
+                case 'h' -> amount * 3600;
+                case 'd' -> amount * 86400;
+                case 'w' -> amount * 604800;
+                default -> -1;
+            };
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    public static String format(long seconds) {
+        if (seconds < 60) return seconds + "s";
+        if (seconds < 3600) return (seconds / 60) + "m";
+        if (seconds < 86400) return (seconds / 3600) + "h";
+        if (seconds < 604800) return (seconds / 86400) + "d";
+        return (seconds / 604800) + "w";
+    }
+}
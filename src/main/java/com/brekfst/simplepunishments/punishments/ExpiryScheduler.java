@@ -0,0 +1,131 @@
+package com.brekfst.simplepunishments.punishments;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class ExpiryScheduler {
+    private final PriorityQueue<Entry> deadlines = new PriorityQueue<>();
+    private final Map<UUID, Entry> scheduled = new HashMap<>();
+    private final Consumer<List<Punishment>> onExpired;
+    private final Logger logger;
+    private final Thread thread;
+    private boolean running = true;
+
+    public ExpiryScheduler(Consumer<List<Punishment>> onExpired, Logger logger) {
+        this.onExpired = onExpired;
+        this.logger = logger;
+        this.thread = new Thread(this::run, "SimplePunishments-Expiry");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public synchronized void schedule(Punishment punishment) {
+        if (punishment.isPermanent() || !punishment.isActive()) return;
+
+        Entry existing = scheduled.get(punishment.getId());
+        if (existing != null) {
+            // Reloads create fresh objects for the same row; expire the newest one
+            existing.punishment = punishment;
+            return;
+        }
+
+        Entry entry = new Entry(punishment, punishment.getExpirationTime().toEpochMilli());
+        scheduled.put(punishment.getId(), entry);
+        deadlines.add(entry);
+
+        if (deadlines.peek() == entry) {
+            notifyAll();
+        }
+    }
+
+    public synchronized void cancel(UUID punishmentId) {
+        Entry entry = scheduled.remove(punishmentId);
+        if (entry != null) {
+            // Left in the heap and skipped when it surfaces
+            entry.cancelled = true;
+        }
+    }
+
+    public synchronized void clear() {
+        scheduled.clear();
+        deadlines.clear();
+    }
+
+    public synchronized int size() {
+        return scheduled.size();
+    }
+
+    public synchronized void shutdown() {
+        running = false;
+        notifyAll();
+    }
+
+    private void run() {
+        while (true) {
+            List<Punishment> expired;
+            synchronized (this) {
+                try {
+                    while (running && !isDue()) {
+                        Entry next = deadlines.peek();
+                        if (next == null) {
+                            wait();
+                        } else {
+                            wait(Math.max(1, next.expiresAt - System.currentTimeMillis()));
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (!running) return;
+                expired = pollExpired(System.currentTimeMillis());
+            }
+
+            if (expired.isEmpty()) continue;
+            try {
+                onExpired.accept(expired);
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "Failed to expire " + expired.size() + " punishments", e);
+            }
+        }
+    }
+
+    private boolean isDue() {
+        Entry next = deadlines.peek();
+        return next != null && (next.cancelled || next.expiresAt <= System.currentTimeMillis());
+    }
+
+    private List<Punishment> pollExpired(long now) {
+        List<Punishment> expired = new ArrayList<>();
+        Entry next;
+        while ((next = deadlines.peek()) != null && (next.cancelled || next.expiresAt <= now)) {
+            deadlines.poll();
+            if (next.cancelled) continue;
+            scheduled.remove(next.punishment.getId());
+            expired.add(next.punishment);
+        }
+        return expired;
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        private Punishment punishment;
+        private final long expiresAt;
+        private boolean cancelled;
+
+        private Entry(Punishment punishment, long expiresAt) {
+            this.punishment = punishment;
+            this.expiresAt = expiresAt;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return Long.compare(expiresAt, other.expiresAt);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.brekfst.simplepunishments.punishments;
+
+import java.util.List;
+
+// One newest-first slice of a player's history. The cursor for the next slice is the last row exactly as the
+// database returned it: a cached copy shown in its place can carry a more precise created_at than the column
+// stores, which would shift the keyset comparison.
+public class HistoryPage {
+    private final List<Punishment> punishments;
+    private final boolean hasNext;
+    private final Punishment cursor;
+
+    public HistoryPage(List<Punishment> punishments, boolean hasNext) {
+        this(punishments, hasNext, punishments.isEmpty() ? null : punishments.get(punishments.size() - 1));
+    }
+
+    public HistoryPage(List<Punishment> punishments, boolean hasNext, Punishment cursor) {
+        this.punishments = List.copyOf(punishments);
+        this.hasNext = hasNext;
+        this.cursor = cursor;
+    }
+
+    public List<Punishment> getPunishments() {
+        return punishments;
+    }
+
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    public Punishment getCursor() {
+        return cursor;
+    }
+}
@@ -0,0 +1,160 @@
+package com.brekfst.simplepunishments.punishments;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+public final class IpRange {
+    // Range bans are not tied to a player, so each is stored against a target derived from the range, which
+    // keeps one range's rows together instead of every range sharing one list. All of them have zero high bits,
+    // so they sort into one stretch of the target index. Rows from before per-range targets share the all-zero one.
+    public static final String RANGE_TARGETS_FROM = "00000000-0000-0000-";
+    public static final String RANGE_TARGETS_TO = "00000000-0000-0001";
+
+    private static final Pattern IPV4 = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}");
+    private static final Pattern IPV6 = Pattern.compile("[0-9a-fA-F:.]+");
+
+    private final byte[] network;
+    private final int prefixLength;
+
+    private IpRange(byte[] network, int prefixLength) {
+        this.network = network;
+        this.prefixLength = prefixLength;
+    }
+
+    // Accepts "1.2.3.4", "1.2.3.0/24", "2001:db8::/64"; returns null for anything else, never resolves hostnames
+    public static IpRange parse(String text) {
+        if (text == null || text.isEmpty()) return null;
+
+        int slash = text.indexOf('/');
+        String address = slash >= 0 ? text.substring(0, slash) : text;
+        int percent = address.indexOf('%');
+        if (percent >= 0) address = address.substring(0, percent);
+
+        boolean ipv4 = IPV4.matcher(address).matches();
+        if (!ipv4 && (address.indexOf(':') < 0 || !IPV6.matcher(address).matches())) {
+            return null;
+        }
+
+        byte[] bytes;
+        if (ipv4) {
+            bytes = parseIpv4(address);
+            if (bytes == null) return null;
+        } else {
+            // Text containing ':' is only ever parsed as an IPv6 literal, never looked up
+            try {
+                bytes = toBytes(InetAddress.getByName(address));
+            } catch (UnknownHostException e) {
+                return null;
+            }
+        }
+
+        int maxBits = bytes.length * 8;
+        int prefix = maxBits;
+        if (slash >= 0) {
+            try {
+                prefix = Integer.parseInt(text.substring(slash + 1));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (prefix < 0 || prefix > maxBits) return null;
+        }
+
+        // Zero the host bits so 1.2.3.77/24 and 1.2.3.0/24 are the same range
+        for (int bit = prefix; bit < maxBits; bit++) {
+            bytes[bit >>> 3] &= (byte) ~(0x80 >>> (bit & 7));
+        }
+        return new IpRange(bytes, prefix);
+    }
+
+    // Built by hand: handing "999.1.1.1" to InetAddress would make it try a DNS lookup
+    private static byte[] parseIpv4(String address) {
+        String[] octets = address.split("\\.");
+        byte[] bytes = new byte[4];
+        for (int i = 0; i < 4; i++) {
+            int octet = Integer.parseInt(octets[i]);
+            if (octet > 255) return null;
+            bytes[i] = (byte) octet;
+        }
+        return bytes;
+    }
+
+    public static boolean isRangeTarget(UUID targetId) {
+        return targetId.getMostSignificantBits() == 0L;
+    }
+
+    public static IpRange of(InetAddress address) {
+        byte[] bytes = toBytes(address);
+        return new IpRange(bytes, bytes.length * 8);
+    }
+
+    // IPv4-mapped IPv6 addresses are treated as the IPv4 address they carry
+    static byte[] toBytes(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        if (address instanceof Inet6Address && isIpv4Mapped(bytes)) {
+            byte[] ipv4 = new byte[4];
+            System.arraycopy(bytes, 12, ipv4, 0, 4);
+            return ipv4;
+        }
+        return bytes;
+    }
+
+    private static boolean isIpv4Mapped(byte[] bytes) {
+        for (int i = 0; i < 10; i++) {
+            if (bytes[i] != 0) return false;
+        }
+        return bytes[10] == (byte) 0xff && bytes[11] == (byte) 0xff;
+    }
+
+    public boolean contains(InetAddress address) {
+        byte[] bytes = toBytes(address);
+        if (bytes.length != network.length) return false;
+
+        for (int bit = 0; bit < prefixLength; bit++) {
+            int mask = 0x80 >>> (bit & 7);
+            if ((bytes[bit >>> 3] & mask) != (network[bit >>> 3] & mask)) return false;
+        }
+        return true;
+    }
+
+    public byte[] getNetwork() {
+        return network.clone();
+    }
+
+    public int getPrefixLength() {
+        return prefixLength;
+    }
+
+    public boolean isIpv4() {
+        return network.length == 4;
+    }
+
+    // FNV-1a over the canonical form, so the same range always gets the same target
+    public UUID getTargetId() {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : toString().getBytes(StandardCharsets.US_ASCII)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return new UUID(0L, hash != 0L ? hash : 1L);
+    }
+
+    public boolean isSingleAddress() {
+        return prefixLength == network.length * 8;
+    }
+
+    // Single addresses keep the plain form so exact bans match rows written before ranges existed
+    @Override
+    public String toString() {
+        String address;
+        try {
+            address = InetAddress.getByAddress(network).getHostAddress();
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException(e);
+        }
+        return isSingleAddress() ? address : address + "/" + prefixLength;
+    }
+}
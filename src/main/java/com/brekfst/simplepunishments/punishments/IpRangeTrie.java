@@ -0,0 +1,182 @@
+package com.brekfst.simplepunishments.punishments;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Predicate;
+
+// Binary radix trie over address bits: one branch per bit, so a lookup walks at most 32 (IPv4)
+// or 128 (IPv6) nodes no matter how many ranges are stored. A range can hold several values, since
+// two servers or an import may each have banned it.
+public class IpRangeTrie<V> {
+    private final StampedLock lock = new StampedLock();
+    private Node<V> ipv4Root = new Node<>();
+    private Node<V> ipv6Root = new Node<>();
+    private int size;
+
+    public void put(IpRange range, V value) {
+        long stamp = lock.writeLock();
+        try {
+            Node<V> node = root(range);
+            byte[] network = range.getNetwork();
+            for (int bit = 0; bit < range.getPrefixLength(); bit++) {
+                if (isSet(network, bit)) {
+                    if (node.one == null) node.one = new Node<>();
+                    node = node.one;
+                } else {
+                    if (node.zero == null) node.zero = new Node<>();
+                    node = node.zero;
+                }
+            }
+            if (node.values == null) node.values = new ArrayList<>(1);
+            int index = node.values.indexOf(value);
+            if (index >= 0) {
+                node.values.set(index, value);
+            } else {
+                node.values.add(value);
+                size++;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Every value stored for exactly this range
+    public List<V> get(IpRange range) {
+        long stamp = lock.readLock();
+        try {
+            Node<V> node = find(range);
+            return node != null && node.values != null ? new ArrayList<>(node.values) : new ArrayList<>();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Drops only the given value; others stored for the same range stay
+    public boolean remove(IpRange range, V value) {
+        long stamp = lock.writeLock();
+        try {
+            Node<V> node = find(range);
+            if (node == null || node.values == null || !node.values.remove(value)) {
+                return false;
+            }
+            size--;
+            if (node.values.isEmpty()) {
+                node.values = null;
+                prune(root(range), range.getNetwork(), 0, range.getPrefixLength());
+            }
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public V match(InetAddress address) {
+        return match(address, value -> true);
+    }
+
+    // Most specific value containing the address that passes the filter, so a lifted or expired value still
+    // indexed does not hide a wider range covering the same address; null if none does
+    public V match(InetAddress address, Predicate<? super V> filter) {
+        byte[] bytes = IpRange.toBytes(address);
+        long stamp = lock.readLock();
+        try {
+            Node<V> node = bytes.length == 4 ? ipv4Root : ipv6Root;
+            V best = first(node, filter);
+            int bits = bytes.length * 8;
+            for (int bit = 0; bit < bits; bit++) {
+                node = isSet(bytes, bit) ? node.one : node.zero;
+                if (node == null) break;
+                V value = first(node, filter);
+                if (value != null) best = value;
+            }
+            return best;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public List<V> values() {
+        long stamp = lock.readLock();
+        try {
+            List<V> values = new ArrayList<>(size);
+            collect(ipv4Root, values);
+            collect(ipv6Root, values);
+            return values;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            ipv4Root = new Node<>();
+            ipv6Root = new Node<>();
+            size = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private Node<V> root(IpRange range) {
+        return range.isIpv4() ? ipv4Root : ipv6Root;
+    }
+
+    private Node<V> find(IpRange range) {
+        Node<V> node = root(range);
+        byte[] network = range.getNetwork();
+        for (int bit = 0; bit < range.getPrefixLength() && node != null; bit++) {
+            node = isSet(network, bit) ? node.one : node.zero;
+        }
+        return node;
+    }
+
+    // Drops nodes left with neither a value nor children; returns whether the node itself can go
+    private boolean prune(Node<V> node, byte[] network, int bit, int prefixLength) {
+        if (node == null) return true;
+        if (bit < prefixLength) {
+            boolean one = isSet(network, bit);
+            if (prune(one ? node.one : node.zero, network, bit + 1, prefixLength)) {
+                if (one) node.one = null; else node.zero = null;
+            }
+        }
+        return node.values == null && node.zero == null && node.one == null;
+    }
+
+    private V first(Node<V> node, Predicate<? super V> filter) {
+        if (node.values == null) return null;
+        for (V value : node.values) {
+            if (filter.test(value)) return value;
+        }
+        return null;
+    }
+
+    private void collect(Node<V> node, List<V> values) {
+        if (node == null) return;
+        if (node.values != null) values.addAll(node.values);
+        collect(node.zero, values);
+        collect(node.one, values);
+    }
+
+    private static boolean isSet(byte[] bytes, int bit) {
+        return (bytes[bit >>> 3] & (0x80 >>> (bit & 7))) != 0;
+    }
+
+    private static final class Node<V> {
+        private Node<V> zero;
+        private Node<V> one;
+        // Null while empty; usually a single value
+        private List<V> values;
+    }
+}
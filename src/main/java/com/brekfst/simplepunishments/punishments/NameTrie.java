@@ -0,0 +1,123 @@
+package com.brekfst.simplepunishments.punishments;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Character trie over lowercase names. A prefix lookup walks one node per typed character and then
+// collects names in alphabetical order until the limit is reached. Not thread-safe on its own.
+public class NameTrie {
+    private final Node root = new Node();
+    private int size;
+
+    // Counted, so the same name added twice needs two removals
+    public void add(String key, String name) {
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.childOrCreate(key.charAt(i));
+        }
+        if (node.count++ == 0) size++;
+        node.name = name;
+    }
+
+    public boolean remove(String key) {
+        Node[] path = new Node[key.length() + 1];
+        Node node = root;
+        path[0] = node;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.child(key.charAt(i));
+            if (node == null) return false;
+            path[i + 1] = node;
+        }
+        if (node.count == 0) return false;
+
+        if (--node.count == 0) {
+            node.name = null;
+            size--;
+            // Unlink nodes that no longer lead to any name
+            for (int i = key.length(); i > 0 && path[i].count == 0 && path[i].keys.length == 0; i--) {
+                path[i - 1].removeChild(key.charAt(i - 1));
+            }
+        }
+        return true;
+    }
+
+    public List<String> complete(String prefix, int limit) {
+        List<String> names = new ArrayList<>(Math.min(limit, 16));
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        if (node != null) {
+            collect(node, names, limit);
+        }
+        return names;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        root.keys = new char[0];
+        root.children = new Node[0];
+        root.count = 0;
+        root.name = null;
+        size = 0;
+    }
+
+    private static void collect(Node node, List<String> names, int limit) {
+        if (names.size() >= limit) return;
+        if (node.count > 0) names.add(node.name);
+        for (int i = 0; i < node.children.length && names.size() < limit; i++) {
+            collect(node.children[i], names, limit);
+        }
+    }
+
+    // Children sit in arrays sorted by character: a name's nodes rarely branch, so this beats a map per node
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private int count;
+        private String name;
+
+        private Node child(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        private Node childOrCreate(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            if (index >= 0) return children[index];
+
+            int insert = -index - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insert);
+            System.arraycopy(children, 0, newChildren, 0, insert);
+            System.arraycopy(keys, insert, newKeys, insert + 1, keys.length - insert);
+            System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+
+            Node child = new Node();
+            newKeys[insert] = c;
+            newChildren[insert] = child;
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+
+        private void removeChild(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            if (index < 0) return;
+
+            char[] newKeys = new char[keys.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            keys = newKeys;
+            children = newChildren;
+        }
+    }
+}
@@ -16,7 +16,7 @@ public class Punishment {
     private final Long duration;
     private String bannedIP;
     private final SimplePunishments plugin;
-    private boolean active;
+    private volatile boolean active;
 
     // Constructor for new punishments
     public Punishment(SimplePunishments plugin, UUID targetId, PunishmentType type, String reason, UUID issuerId, Long duration, String ip, boolean active) {
@@ -95,6 +95,24 @@ public class Punishment {
         plugin.getDatabaseManager().updatePunishment(this);
     }
 
+    // Mirrors a deactivation already persisted through another copy of this row
+    void markInactive() {
+        this.active = false;
+    }
+
+    // Several copies of one row can be alive at once (reloads, compact store), so identity is the row ID
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Punishment)) return false;
+        return id.equals(((Punishment) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
+
     public String getFormattedDuration() {
         if (isPermanent()) return "Permanent";
         long seconds = duration;
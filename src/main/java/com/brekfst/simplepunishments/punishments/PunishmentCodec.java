@@ -0,0 +1,83 @@
+package com.brekfst.simplepunishments.punishments;
+
+import com.brekfst.simplepunishments.SimplePunishments;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+// Binary punishment record shared by the snapshot and the write journal: ids, type ordinal, creation time,
+// then a flags byte saying which of the optional fields follow. Strings are length-prefixed UTF-8.
+public final class PunishmentCodec {
+    private static final int HAS_ISSUER = 1;
+    private static final int HAS_DURATION = 1 << 1;
+    private static final int HAS_REASON = 1 << 2;
+    private static final int HAS_IP = 1 << 3;
+
+    private PunishmentCodec() {
+    }
+
+    // With a reason table the reason is stored as its index, otherwise inline. Active is left to the caller.
+    public static void write(DataOutput out, Punishment punishment, Map<String, Integer> reasons) throws IOException {
+        writeUuid(out, punishment.getId());
+        writeUuid(out, punishment.getTargetId());
+        out.writeByte(punishment.getType().ordinal());
+        out.writeLong(punishment.getCreatedAt().toEpochMilli());
+
+        int flags = (punishment.getIssuerId() != null ? HAS_ISSUER : 0)
+                | (punishment.getDuration() != null ? HAS_DURATION : 0)
+                | (punishment.getReason() != null ? HAS_REASON : 0)
+                | (punishment.getBannedIP() != null ? HAS_IP : 0);
+        out.writeByte(flags);
+        if (punishment.getIssuerId() != null) writeUuid(out, punishment.getIssuerId());
+        if (punishment.getDuration() != null) out.writeLong(punishment.getDuration());
+        if (punishment.getReason() != null) {
+            if (reasons != null) {
+                out.writeInt(reasons.get(punishment.getReason()));
+            } else {
+                writeString(out, punishment.getReason());
+            }
+        }
+        if (punishment.getBannedIP() != null) writeString(out, punishment.getBannedIP());
+    }
+
+    // Throws a RuntimeException on a truncated buffer or an unknown type ordinal
+    public static Punishment read(SimplePunishments plugin, ByteBuffer in, PunishmentType[] types, String[] reasons, boolean active) {
+        UUID id = readUuid(in);
+        UUID targetId = readUuid(in);
+        PunishmentType type = types[in.get() & 0xFF];
+        Instant createdAt = Instant.ofEpochMilli(in.getLong());
+
+        int flags = in.get() & 0xFF;
+        UUID issuerId = (flags & HAS_ISSUER) != 0 ? readUuid(in) : null;
+        Long duration = (flags & HAS_DURATION) != 0 ? in.getLong() : null;
+        String reason = (flags & HAS_REASON) == 0 ? null : reasons != null ? reasons[in.getInt()] : readString(in);
+        String ip = (flags & HAS_IP) != 0 ? readString(in) : null;
+        return new Punishment(plugin, id, targetId, type, reason, issuerId, createdAt, duration, ip, active);
+    }
+
+    public static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeUuid(DataOutput out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(ByteBuffer in) {
+        return new UUID(in.getLong(), in.getLong());
+    }
+}
@@ -0,0 +1,45 @@
+package com.brekfst.simplepunishments.punishments;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+
+// Criteria for scanning the whole punishments table; null bounds and an empty type set match everything
+public class PunishmentFilter {
+    private final Instant from;
+    private final Instant to;
+    private final Set<PunishmentType> types;
+    private final boolean byIssuer;
+    private final UUID issuerId;
+
+    // from is inclusive and to exclusive; with byIssuer set, a null issuerId selects console punishments
+    public PunishmentFilter(Instant from, Instant to, Set<PunishmentType> types, boolean byIssuer, UUID issuerId) {
+        this.from = from;
+        this.to = to;
+        this.types = types.isEmpty() ? EnumSet.noneOf(PunishmentType.class) : EnumSet.copyOf(types);
+        this.byIssuer = byIssuer;
+        this.issuerId = issuerId;
+    }
+
+    public Instant getFrom() {
+        return from;
+    }
+
+    public Instant getTo() {
+        return to;
+    }
+
+    public Set<PunishmentType> getTypes() {
+        return Collections.unmodifiableSet(types);
+    }
+
+    public boolean isByIssuer() {
+        return byIssuer;
+    }
+
+    public UUID getIssuerId() {
+        return issuerId;
+    }
+}
@@ -1,21 +1,114 @@
 package com.brekfst.simplepunishments.punishments;
 
 import com.brekfst.simplepunishments.SimplePunishments;
+import com.brekfst.simplepunishments.config.Placeholders;
+import com.brekfst.simplepunishments.database.DatabaseUnavailableException;
 import com.brekfst.simplepunishments.events.PunishmentEvent;
+import com.brekfst.simplepunishments.events.PunishmentWaveEvent;
+import com.brekfst.simplepunishments.metrics.Metrics;
+import com.brekfst.simplepunishments.sync.PunishmentDelta;
 import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
 
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 public class PunishmentManager {
     private final SimplePunishments plugin;
-    private final Map<UUID, List<Punishment>> punishmentCache = new HashMap<>();
-    private final Map<String, Punishment> ipBanCache = new HashMap<>();
+    private final PunishmentStore punishmentCache;
+    private final IpRangeTrie<Punishment> ipBans = new IpRangeTrie<>();
+    private final ActiveMuteIndex muteIndex = new ActiveMuteIndex();
+    private final ActiveNameIndex nameIndex = new ActiveNameIndex();
+    private final ExpiryScheduler expiryScheduler;
+    private final CacheWarmUp warmUp;
+    // Until the warm-up finishes memory is incomplete, so lookups that would trust it go to the database by key
+    private volatile boolean ready;
+    private final Set<UUID> checkedDuringWarmUp = ConcurrentHashMap.newKeySet();
+    // IDs lifted on another server before their slice arrived; a lift delta carries too little to cache a row
+    private final Set<UUID> liftedDuringWarmUp = ConcurrentHashMap.newKeySet();
+    private BukkitTask warmUpRetry;
+    private final LongAdder warmedCount = new LongAdder();
+    private final File snapshotFile;
+    // Memory holds every row the database had at this time; snapshots record it so a restart knows what to re-read
+    private volatile Instant loadedAt;
+    private BukkitTask snapshotTask;
+
+    private final LongAdder issued;
+    private final LongAdder expiredCount;
+    private final LongAdder ipBanCacheHits;
+    private final LongAdder ipBanDatabaseLookups;
+    private final LongAdder unpunishCacheHits;
+    private final LongAdder unpunishCacheMisses;
+    private final LongAdder remoteDeltas;
+    private final Executor mainThread;
 
     public PunishmentManager(SimplePunishments plugin) {
         this.plugin = plugin;
-        loadAllPunishments();
+        this.punishmentCache = createStore();
+        this.expiryScheduler = new ExpiryScheduler(this::expirePunishments, plugin.getLogger());
+        this.mainThread = task -> plugin.getServer().getScheduler().runTask(plugin, task);
+
+        Metrics metrics = plugin.getMetrics();
+        this.issued = metrics.counter("punishments_issued_total");
+        this.expiredCount = metrics.counter("punishments_expired_total");
+        this.ipBanCacheHits = metrics.counter("ip_ban_cache_hits_total");
+        this.ipBanDatabaseLookups = metrics.counter("ip_ban_db_lookups_total");
+        this.unpunishCacheHits = metrics.counter("unpunish_cache_hits_total");
+        this.unpunishCacheMisses = metrics.counter("unpunish_cache_misses_total");
+        this.remoteDeltas = metrics.counter("sync_deltas_applied_total");
+        metrics.gauge("cache_players", punishmentCache::playerCount);
+        metrics.gauge("ip_bans_indexed", ipBans::size);
+        metrics.gauge("expiry_scheduled", expiryScheduler::size);
+        metrics.gauge("warm_up_ready", () -> ready ? 1 : 0);
+
+        this.warmUp = new CacheWarmUp(
+                plugin.getConfig().getInt("startup.warm-up.threads", 4),
+                plugin.getConfig().getInt("startup.warm-up.ranges", 16));
+        this.snapshotFile = new File(plugin.getDataFolder(), "cache/active.snapshot");
+        plugin.getSyncService().attach(this::applyDelta);
+        startWarmUp();
+
+        if (plugin.getConfig().getBoolean("snapshot.enabled", true)) {
+            long intervalTicks = Math.max(1, plugin.getConfig().getLong("snapshot.interval", 10)) * 60 * 20L;
+            snapshotTask = plugin.getServer().getScheduler()
+                    .runTaskTimerAsynchronously(plugin, this::saveSnapshot, intervalTicks, intervalTicks);
+        }
+    }
+
+    private PunishmentStore createStore() {
+        if (plugin.getConfig().getString("cache.layout", "SHARDED").equalsIgnoreCase("COMPACT")) {
+            return new CompactPunishmentStore(plugin);
+        }
+        return new ShardedPunishmentStore(plugin.getConfig().getInt("cache.shards", 16));
+    }
+
+    public void shutdown() {
+        if (warmUpRetry != null) {
+            warmUpRetry.cancel();
+        }
+        warmUp.shutdown();
+        if (snapshotTask != null) {
+            snapshotTask.cancel();
+            saveSnapshot();
+        }
+        expiryScheduler.shutdown();
+    }
+
+    public boolean isReady() {
+        return ready;
     }
 
     public void punishPlayer(UUID targetId, PunishmentType type, String reason, UUID issuerId, Long duration, String ip) {
@@ -28,23 +121,210 @@ public class PunishmentManager {
         plugin.getServer().getPluginManager().callEvent(event);
 
         if (!event.isCancelled()) {
+            issued.increment();
+
             // Save to database
             plugin.getDatabaseManager().savePunishment(punishment);
 
             // Update cache
-            if (type == PunishmentType.IP_BAN && ip != null) {
-                ipBanCache.put(ip, punishment);
+            punishmentCache.add(punishment);
+            index(punishment);
+            if (type != PunishmentType.KICK) {
+                plugin.getSyncService().publish(PunishmentDelta.Kind.PUNISH, punishment);
             }
-            punishmentCache.computeIfAbsent(targetId, k -> new ArrayList<>()).add(punishment);
-
-            // Verify punishment was saved
-            Optional<Punishment> saved = getActivePunishment(targetId, type);
 
             // Apply punishment
             applyPunishment(punishment);
         }
     }
 
+    // Bulk counterpart of punishPlayer for ban waves: one query for existing punishments, one transaction for
+    // the inserts and one PunishmentWaveEvent. Call from the main thread; online targets are kicked over
+    // several ticks rather than all at once.
+    public CompletableFuture<WaveResult> punishAll(Collection<UUID> targetIds, PunishmentType type, String reason,
+                                                   UUID issuerId, Long duration) {
+        if (type != PunishmentType.BAN && type != PunishmentType.TEMP_BAN
+                && type != PunishmentType.MUTE && type != PunishmentType.TEMP_MUTE) {
+            throw new IllegalArgumentException("Unsupported wave type " + type);
+        }
+
+        Set<UUID> targets = new LinkedHashSet<>(targetIds);
+        return supplyAsync(() -> plugin.getDatabaseManager().loadActivePunishments(targets))
+                .thenApplyAsync(active -> createWave(targets, active, type, reason, issuerId, duration), mainThread)
+                .thenCompose(wave -> wave.isCancelled() || wave.getPunished().isEmpty()
+                        ? CompletableFuture.completedFuture(wave)
+                        : supplyAsync(() -> storeWave(wave)))
+                .thenApplyAsync(wave -> {
+                    applyOverTicks(wave.getPunished());
+                    return wave;
+                }, mainThread);
+    }
+
+    private WaveResult createWave(Set<UUID> targets, List<Punishment> active, PunishmentType type, String reason,
+                                  UUID issuerId, Long duration) {
+        PunishmentType existingType = switch (type) {
+            case TEMP_BAN -> PunishmentType.BAN;
+            case TEMP_MUTE -> PunishmentType.MUTE;
+            default -> type;
+        };
+        Set<UUID> punishedAlready = new HashSet<>();
+        for (Punishment punishment : active) {
+            if (matchesType(punishment, existingType) && !punishment.isExpired()) {
+                punishedAlready.add(punishment.getTargetId());
+            }
+        }
+
+        List<Punishment> punishments = new ArrayList<>();
+        for (UUID targetId : targets) {
+            // The cache also covers punishments still waiting in the writer queue
+            if (punishedAlready.contains(targetId) || findCachedActive(targetId, existingType) != null) continue;
+            punishments.add(new Punishment(plugin, targetId, type, reason, issuerId, duration, null, true));
+        }
+        int skipped = targets.size() - punishments.size();
+
+        PunishmentWaveEvent event = new PunishmentWaveEvent(punishments);
+        plugin.getServer().getPluginManager().callEvent(event);
+        if (event.isCancelled()) {
+            return new WaveResult(List.of(), skipped, true);
+        }
+        return new WaveResult(event.getPunishments(), skipped, false);
+    }
+
+    // Runs async: the rows are committed together before anything becomes visible in memory
+    private WaveResult storeWave(WaveResult wave) {
+        try {
+            plugin.getDatabaseManager().saveAll(wave.getPunished());
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to store punishment wave: " + e.getMessage(), e);
+        }
+
+        for (Punishment punishment : wave.getPunished()) {
+            issued.increment();
+            punishmentCache.add(punishment);
+            index(punishment);
+            plugin.getSyncService().publish(PunishmentDelta.Kind.PUNISH, punishment);
+        }
+        return wave;
+    }
+
+    // Bans kick and mutes notify the targets that are online, a few per tick
+    private void applyOverTicks(List<Punishment> punishments) {
+        Deque<Punishment> pending = new ArrayDeque<>();
+        for (Punishment punishment : punishments) {
+            if (punishment.getType() != PunishmentType.KICK && punishment.getType() != PunishmentType.IP_BAN) {
+                pending.add(punishment);
+            }
+        }
+        if (pending.isEmpty()) return;
+
+        int perTick = Math.max(1, plugin.getConfig().getInt("wave.kicks-per-tick", 5));
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                for (int kicked = 0; kicked < perTick && !pending.isEmpty(); ) {
+                    Punishment punishment = pending.poll();
+                    if (plugin.getServer().getPlayer(punishment.getTargetId()) != null) {
+                        applyPunishment(punishment);
+                        kicked++;
+                    }
+                }
+                if (pending.isEmpty()) cancel();
+            }
+        }.runTaskTimer(plugin, 1L, 1L);
+    }
+
+    private void index(Punishment punishment) {
+        if (punishment.getType() == PunishmentType.IP_BAN && punishment.getBannedIP() != null) {
+            indexIpBan(punishment);
+        }
+        muteIndex.put(punishment);
+        expiryScheduler.schedule(punishment);
+        indexName(punishment);
+    }
+
+    // Rows written by /sp import; no events or kicks, since the server that produced them already enforced them.
+    // Names come from the import source, so the completion index needs no lookups.
+    public void addImported(List<Punishment> punishments, Map<UUID, String> names) {
+        for (Punishment imported : punishments) {
+            Punishment punishment = punishmentCache.addIfAbsent(imported);
+            if (punishment != imported || !punishment.isActive()) continue;
+
+            if (punishment.getType() == PunishmentType.IP_BAN && punishment.getBannedIP() != null) {
+                indexIpBan(punishment);
+            }
+            muteIndex.put(punishment);
+            expiryScheduler.schedule(punishment);
+            String name = names.get(punishment.getTargetId());
+            if (name != null) {
+                nameIndex.add(punishment, name);
+            } else {
+                indexName(punishment);
+            }
+            plugin.getSyncService().publish(PunishmentDelta.Kind.PUNISH, punishment);
+        }
+    }
+
+    // Runs on the bus thread with a change made on another server; the database already has it
+    // (or will once that server's writer flushes), so only memory is touched here
+    private void applyDelta(PunishmentDelta delta) {
+        remoteDeltas.increment();
+        Punishment cached = findCached(delta.getTargetId(), delta.getId());
+        if (delta.getKind() == PunishmentDelta.Kind.PUNISH) {
+            if (cached != null) return;
+            Punishment punishment = punishmentCache.addIfAbsent(delta.toPunishment(plugin));
+            index(punishment);
+            plugin.getServer().getScheduler().runTask(plugin, () -> applyRemotePunishment(punishment));
+            return;
+        }
+
+        if (cached != null) {
+            lift(cached);
+        } else {
+            // Indexes match rows by ID, so the keys in the delta are enough
+            unindex(delta.toPunishment(plugin));
+            if (!ready) {
+                // Remembered so a warm-up slice read before the lift cannot bring the row back. A slice that
+                // cached it meanwhile checks the set after adding, and this checks the cache after recording.
+                liftedDuringWarmUp.add(delta.getId());
+                cached = findCached(delta.getTargetId(), delta.getId());
+                if (cached != null) lift(cached);
+            }
+        }
+    }
+
+    private void lift(Punishment cached) {
+        if (!cached.isActive()) return;
+        cached.markInactive();
+        punishmentCache.markInactive(cached);
+        unindex(cached);
+    }
+
+    private void applyRemotePunishment(Punishment punishment) {
+        if (!punishment.isActive()) return;
+        if (punishment.getType() != PunishmentType.IP_BAN) {
+            applyPunishment(punishment);
+            return;
+        }
+
+        IpRange range = IpRange.parse(punishment.getBannedIP());
+        if (range == null) return;
+        String kickMessage = plugin.getConfigManager().getMessage("ipban-message", createPlaceholders(punishment));
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            if (range.contains(player.getAddress().getAddress())) {
+                player.kickPlayer(kickMessage);
+            }
+        }
+    }
+
+    private Punishment findCached(UUID targetId, UUID punishmentId) {
+        for (Punishment punishment : punishmentCache.get(targetId)) {
+            if (punishment.getId().equals(punishmentId)) {
+                return punishment;
+            }
+        }
+        return null;
+    }
+
     public void logAllPunishments(UUID targetId) {
         List<Punishment> punishments = punishmentCache.get(targetId);
     }
@@ -54,154 +334,487 @@ public class PunishmentManager {
         if (player != null && player.isOnline()) {
             switch (punishment.getType()) {
                 case BAN, TEMP_BAN -> {
-                    Map<String, String> placeholders = createPlaceholders(punishment);
                     player.kickPlayer(plugin.getConfigManager().getMessage(
                             punishment.isPermanent() ? "ban-message" : "temp-ban-message",
-                            placeholders
+                            createPlaceholders(punishment)
                     ));
                 }
+                case MUTE, TEMP_MUTE -> player.sendMessage(plugin.getConfigManager().getMessage(
+                        punishment.isPermanent() ? "mute-message" : "temp-mute-message",
+                        createPlaceholders(punishment)
+                ));
                 case KICK -> player.kickPlayer(punishment.getReason());
             }
         }
     }
 
-    public void removePunishment(UUID targetId, PunishmentType type) {
+    // Takes the punishment getActivePunishment found off the main thread, so lifting it reads nothing
+    public void removePunishment(Punishment found) {
+        Punishment punishment = findCached(found.getTargetId(), found.getId());
+        if (punishment != null) {
+            unpunishCacheHits.increment();
+        } else {
+            unpunishCacheMisses.increment();
+            // Not known locally, e.g. issued by another server after this one loaded
+            punishment = cacheLoaded(found);
+        }
+
+        // Lifted meanwhile by expiry or another server
+        if (!punishment.isActive()) return;
+        deactivate(punishment, PunishmentDelta.Kind.UNPUNISH);
+    }
+
+    // One keyed write plus removal from the in-memory indexes, nothing is reloaded
+    private void deactivate(Punishment punishment, PunishmentDelta.Kind kind) {
+        punishment.deactivate();
+        punishmentCache.markInactive(punishment);
+        unindex(punishment);
+        plugin.getSyncService().publish(kind, punishment);
+    }
+
+    private void unindex(Punishment punishment) {
+        expiryScheduler.cancel(punishment.getId());
+        if (punishment.getType() == PunishmentType.IP_BAN && punishment.getBannedIP() != null) {
+            IpRange range = IpRange.parse(punishment.getBannedIP());
+            if (range != null) {
+                ipBans.remove(range, punishment);
+            }
+        }
+        if (punishment.getType() == PunishmentType.MUTE || punishment.getType() == PunishmentType.TEMP_MUTE) {
+            muteIndex.remove(punishment.getTargetId(), punishment.getId());
+        }
+        nameIndex.remove(punishment.getId());
+    }
+
+    // The name is usually cached already since the command just resolved it; otherwise it is added once loaded
+    private void indexName(Punishment punishment) {
+        if (!ActiveNameIndex.isIndexed(punishment) || !punishment.isActive()) return;
+        plugin.getPlayerDirectory().resolveName(punishment.getTargetId())
+                .thenAccept(name -> nameIndex.add(punishment, name));
+    }
 
-        Optional<Punishment> punishment = getActivePunishment(targetId, type);
-        if (punishment.isPresent()) {
+    public List<String> completeActiveNames(PunishmentType type, String prefix, int limit) {
+        return nameIndex.complete(type, prefix, limit);
+    }
 
-            Punishment p = punishment.get();
-            p.deactivate();
+    // Memory only, for bulk paths that cannot afford a query per player
+    public boolean hasCachedActive(UUID targetId, PunishmentType type) {
+        return findCachedActive(targetId, type) != null;
+    }
 
-            punishmentCache.clear();
-            loadAllPunishments();
+    private Punishment findCachedActive(UUID targetId, PunishmentType type) {
+        return findActive(punishmentCache.get(targetId), type);
+    }
 
-            Optional<Punishment> verifyPunishment = getActivePunishment(targetId, type);
-            if (verifyPunishment.isEmpty()) {
-                plugin.getDatabaseManager().updatePunishment(p);
+    // The first active, unexpired punishment of the type in a player's rows; public for the benchmarks module
+    public static Punishment findActive(List<Punishment> punishments, PunishmentType type) {
+        for (Punishment punishment : punishments) {
+            if (matchesType(punishment, type) && punishment.isActive() && !punishment.isExpired()) {
+                return punishment;
             }
         }
+        return null;
+    }
+
+    // Returns the cached instance for the same row if there is one, otherwise caches the loaded one
+    private Punishment cacheLoaded(Punishment loaded) {
+        return punishmentCache.addIfAbsent(loaded);
+    }
+
+    private static boolean matchesType(Punishment punishment, PunishmentType type) {
+        return switch (type) {
+            case BAN -> punishment.getType() == PunishmentType.BAN || punishment.getType() == PunishmentType.TEMP_BAN;
+            case MUTE -> punishment.getType() == PunishmentType.MUTE || punishment.getType() == PunishmentType.TEMP_MUTE;
+            default -> punishment.getType() == type;
+        };
     }
 
     public Optional<Punishment> getActivePunishment(UUID targetId, PunishmentType type) {
-        List<Punishment> punishments = plugin.getDatabaseManager().loadPlayerPunishments(targetId);
+        // With the bus running, memory already has every other server's changes once warm-up is done
+        if (ready && plugin.getSyncService().isEnabled()) {
+            return Optional.ofNullable(findCachedActive(targetId, type));
+        }
 
-        return punishments.stream()
-                .filter(p -> {
-                    boolean typeMatch = (type == PunishmentType.BAN) ?
-                            (p.getType() == PunishmentType.BAN || p.getType() == PunishmentType.TEMP_BAN) :
-                            p.getType() == type;
+        List<Punishment> punishments;
+        try {
+            punishments = plugin.getDatabaseManager().loadPlayerPunishments(targetId);
+        } catch (DatabaseUnavailableException e) {
+            // Commands fall back to whatever memory last knew rather than stalling on the database
+            return Optional.ofNullable(findCachedActive(targetId, type));
+        }
 
-                    boolean active = p.isActive();
+        return Optional.ofNullable(findActive(punishments, type));
+    }
 
-                    return typeMatch && active && !p.isExpired();
-                })
-                .findFirst();
+    // Throws DatabaseUnavailableException when the warm-up lookup could not be made; getCachedMute then
+    // gives the last known answer
+    public Punishment getActiveMute(UUID targetId) {
+        // Players already online when the plugin enabled are looked up once by key until their slice arrives
+        if (!ready && !checkedDuringWarmUp.contains(targetId)) {
+            reloadPlayerPunishments(targetId);
+        }
+        return muteIndex.getActiveMute(targetId);
+    }
+
+    public Punishment getCachedMute(UUID targetId) {
+        return muteIndex.getActiveMute(targetId);
     }
 
     public List<Punishment> getPlayerPunishments(UUID targetId) {
-        return new ArrayList<>(punishmentCache.getOrDefault(targetId, new ArrayList<>()));
+        return punishmentCache.get(targetId);
+    }
+
+    // Loads one page off the main thread; rows still cached here are swapped for the cached copy so
+    // deactivations waiting in the write queue already show. The cursor stays the database's row.
+    public CompletableFuture<HistoryPage> loadHistoryPage(UUID targetId, Punishment after, int size) {
+        return plugin.getDatabaseManager().loadPlayerPunishmentPageAsync(targetId, after, size).thenApply(page -> {
+            Map<UUID, Punishment> cached = new HashMap<>();
+            for (Punishment punishment : punishmentCache.get(targetId)) {
+                cached.put(punishment.getId(), punishment);
+            }
+
+            List<Punishment> punishments = new ArrayList<>(page.getPunishments().size());
+            for (Punishment punishment : page.getPunishments()) {
+                punishments.add(cached.getOrDefault(punishment.getId(), punishment));
+            }
+            return new HistoryPage(punishments, page.hasNext(), page.getCursor());
+        });
+    }
+
+    public CompletableFuture<Integer> countHistory(UUID targetId) {
+        return plugin.getDatabaseManager().countPlayerPunishmentsAsync(targetId);
     }
 
-    public void reloadPlayerPunishments(UUID targetId) {
-        List<Punishment> punishments = plugin.getDatabaseManager().loadPlayerPunishments(targetId);
-        punishmentCache.put(targetId, punishments);
+    private <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            try {
+                future.complete(supplier.get());
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
     }
 
-    private void loadAllPunishments() {
-        punishmentCache.clear();
-        ipBanCache.clear();
+    public Punishment getActiveIPBan(UUID targetId) {
+        return findCachedActive(targetId, PunishmentType.IP_BAN);
+    }
 
-        // Load all punishments from database
-        List<Punishment> punishments = plugin.getDatabaseManager().loadPunishments();
+    // Throws DatabaseUnavailableException, leaving the cache as it was, when the database cannot answer
+    public List<Punishment> reloadPlayerPunishments(UUID targetId) {
+        List<Punishment> loaded = plugin.getDatabaseManager().loadPlayerPunishments(targetId);
+        if (!ready) {
+            checkedDuringWarmUp.add(targetId);
+        }
+        List<Punishment> punishments = punishmentCache.update(targetId, cached -> reconcile(cached, loaded));
+        muteIndex.refresh(targetId, punishments);
         for (Punishment punishment : punishments) {
-            if (punishment.getType() == PunishmentType.IP_BAN && punishment.getBannedIP() != null) {
-                ipBanCache.put(punishment.getBannedIP(), punishment);
+            expiryScheduler.schedule(punishment);
+            // Rows lifted on another server leave the name index here
+            if (punishment.isActive()) {
+                indexName(punishment);
             } else {
-                punishmentCache.computeIfAbsent(punishment.getTargetId(), k -> new ArrayList<>())
-                        .add(punishment);
+                nameIndex.remove(punishment.getId());
             }
         }
+        return punishments;
     }
 
-    public List<Punishment> getAllPunishments() {
-        List<Punishment> allPunishments = new ArrayList<>();
-        for (List<Punishment> playerPunishments : punishmentCache.values()) {
-            allPunishments.addAll(playerPunishments);
+    // The database can lag behind memory while writes sit in the queue. Rows it has not seen yet are
+    // kept, and since punishments only ever go from active to inactive, a local deactivation wins
+    private List<Punishment> reconcile(List<Punishment> cached, List<Punishment> loaded) {
+        if (cached.isEmpty()) {
+            return loaded;
+        }
+
+        Map<UUID, Punishment> byId = new LinkedHashMap<>();
+        for (Punishment punishment : loaded) {
+            byId.put(punishment.getId(), punishment);
         }
-        return allPunishments;
+        for (Punishment punishment : cached) {
+            Punishment fromDatabase = byId.get(punishment.getId());
+            if (fromDatabase == null || (!punishment.isActive() && fromDatabase.isActive())) {
+                byId.put(punishment.getId(), punishment);
+            }
+        }
+        return new ArrayList<>(byId.values());
     }
 
-    private void cachePunishment(Punishment punishment) {
-        punishmentCache.computeIfAbsent(punishment.getTargetId(), k -> new ArrayList<>())
-                .add(punishment);
+    // The snapshot is decoded on a warm-up thread as well: nothing uses the restored rows before catch-up
+    // finishes, so there is no point holding up onEnable for them
+    private void startWarmUp() {
+        long start = System.nanoTime();
+        warmUp.supply(this::restoreSnapshot).whenComplete((since, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                plugin.getLogger().warning("Ignoring the active punishment snapshot: " + cause.getMessage());
+            }
+            loadFromDatabase(error == null ? since : null, start, retryDelay(0));
+        });
     }
 
-    private Map<String, String> createPlaceholders(Punishment punishment) {
-        Map<String, String> placeholders = new HashMap<>();
-        placeholders.put("prefix", plugin.getConfigManager().getMessage("prefix"));
-        placeholders.put("player", plugin.getServer().getOfflinePlayer(punishment.getTargetId()).getName());
-        placeholders.put("reason", punishment.getReason());
-        placeholders.put("duration", punishment.getFormattedDuration());
-        placeholders.put("time-left", punishment.getFormattedTimeLeft());
+    // The time to catch up from, or null when there is no usable snapshot and everything must be loaded
+    private Instant restoreSnapshot() {
+        ActiveSnapshot snapshot = readSnapshot();
+        if (snapshot == null) return null;
 
-        String issuerName = punishment.getIssuerId() != null ?
-                plugin.getServer().getOfflinePlayer(punishment.getIssuerId()).getName() :
-                "Console";
-        placeholders.put("issuer", issuerName);
+        // The database only has to supply rows written since
+        addWarmedSlice(snapshot.getPunishments());
+        return snapshot.getTakenAt().minusSeconds(plugin.getConfig().getLong("snapshot.catch-up-margin", 60));
+    }
 
-        if (!punishment.isPermanent() && punishment.getExpirationTime() != null) {
-            placeholders.put("expires", formatExpiration(punishment.getExpirationTime()));
-        } else {
-            placeholders.put("expires", "Never");
+    // Retried with doubling delays until it succeeds; until then logins and commands keep using keyed lookups
+    private void loadFromDatabase(Instant since, long start, long retryMillis) {
+        Instant loading = Instant.now();
+        // Range bans cannot be looked up per address during warm-up, so they come first in one small query
+        CompletableFuture<Void> ranges = warmUp.run(() ->
+                addLoaded(plugin.getDatabaseManager().loadPunishments(IpRange.RANGE_TARGETS_FROM, IpRange.RANGE_TARGETS_TO)));
+        CompletableFuture<Void> warm = since != null
+                ? warmUp.catchUp(() -> plugin.getDatabaseManager().loadChangedSince(since), this::applyChanges)
+                : warmUp.start(plugin.getDatabaseManager()::loadPunishments, this::addWarmedSlice);
+
+        CompletableFuture.allOf(ranges, warm).whenComplete((result, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                plugin.getLogger().severe("Failed to load active punishments, retrying in "
+                        + TimeUnit.MILLISECONDS.toSeconds(retryMillis) + " s: " + cause.getMessage());
+                if (plugin.isEnabled()) {
+                    warmUpRetry = plugin.getServer().getScheduler().runTaskLaterAsynchronously(plugin,
+                            () -> loadFromDatabase(since, start, retryDelay(retryMillis)), Math.max(1, retryMillis / 50));
+                }
+                return;
+            }
+
+            plugin.getMetrics().timer("startup_load").recordSince(start);
+            loadedAt = loading;
+            ready = true;
+            checkedDuringWarmUp.clear();
+            liftedDuringWarmUp.clear();
+            warmUp.finish();
+            plugin.getLogger().info("Loaded " + warmedCount.sum() + " active punishments in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        });
+    }
+
+    private long retryDelay(long previousMillis) {
+        long first = Math.max(1, plugin.getConfig().getLong("startup.warm-up.retry-interval", 5)) * 1000;
+        long max = Math.max(first, plugin.getConfig().getLong("startup.warm-up.max-retry-interval", 300) * 1000);
+        return previousMillis == 0 ? first : Math.min(max, previousMillis * 2);
+    }
+
+    private ActiveSnapshot readSnapshot() {
+        if (!plugin.getConfig().getBoolean("snapshot.enabled", true) || !snapshotFile.exists()) return null;
+
+        try {
+            ActiveSnapshot snapshot = ActiveSnapshot.read(plugin, snapshotFile, plugin.getDatabaseManager().describeSource());
+            plugin.getLogger().info("Restored " + snapshot.getPunishments().size() + " active punishments from the snapshot");
+            return snapshot;
+        } catch (IOException e) {
+            plugin.getLogger().warning("Ignoring the active punishment snapshot: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Skipped until warm-up is done, since a partial set would hide the missing rows from the next catch-up.
+    // Without the bus other servers' changes only reach memory through a load, so the snapshot is dated to
+    // the last one and the next catch-up re-reads everything since.
+    public synchronized void saveSnapshot() {
+        if (!ready) return;
+
+        Instant takenAt = plugin.getSyncService().isEnabled() ? Instant.now() : loadedAt;
+        List<Punishment> active = new ArrayList<>();
+        for (Punishment punishment : punishmentCache.snapshot()) {
+            if (punishment.isActive() && !punishment.isExpired()) {
+                active.add(punishment);
+            }
+        }
+
+        try {
+            ActiveSnapshot.write(snapshotFile, plugin.getDatabaseManager().describeSource(), takenAt, active);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to save the active punishment snapshot: " + e.getMessage());
+        }
+    }
+
+    // Rows written while this server was down: new ones are added, lifted ones leave the indexes. As with
+    // the slices, a row already changed in memory wins.
+    private void applyChanges(List<Punishment> changed) {
+        List<Punishment> added = new ArrayList<>();
+        for (Punishment row : changed) {
+            if (row.isActive()) {
+                added.add(row);
+                continue;
+            }
+
+            Punishment cached = findCached(row.getTargetId(), row.getId());
+            if (cached != null) {
+                lift(cached);
+            }
+        }
+        addWarmedSlice(added);
+    }
+
+    // Runs on a warm-up thread once per range, and once for a restored snapshot
+    private void addWarmedSlice(List<Punishment> loaded) {
+        addLoaded(loaded);
+        warmedCount.add(loaded.size());
+    }
+
+    // Rows already cached (issued, checked at login or synced meanwhile) are newer than the load and win
+    private void addLoaded(List<Punishment> loaded) {
+        List<Punishment> named = new ArrayList<>();
+        Set<UUID> targets = new HashSet<>();
+        for (Punishment row : loaded) {
+            Punishment punishment = punishmentCache.addIfAbsent(row);
+            if (punishment != row || !punishment.isActive()) continue;
+            if (liftedDuringWarmUp.contains(punishment.getId())) {
+                lift(punishment);
+                continue;
+            }
+
+            expiryScheduler.schedule(punishment);
+            if (punishment.getType() == PunishmentType.IP_BAN && punishment.getBannedIP() != null) {
+                indexIpBan(punishment);
+            }
+            muteIndex.put(punishment);
+            if (ActiveNameIndex.isIndexed(punishment)) {
+                named.add(punishment);
+                targets.add(punishment.getTargetId());
+            }
         }
 
-        return placeholders;
+        // Names for the completion index come in one batched lookup per slice rather than a query per target
+        plugin.getPlayerDirectory().resolveNames(targets).thenAccept(names -> {
+            for (Punishment punishment : named) {
+                nameIndex.add(punishment, names.get(punishment.getTargetId()));
+            }
+        });
     }
 
-    public void cleanupExpiredPunishments() {
-        punishmentCache.values().forEach(punishments ->
-                punishments.stream()
-                        .filter(Punishment::isExpired)
-                        .forEach(Punishment::deactivate)
-        );
+    // Consistent point-in-time copy, safe to iterate from any thread
+    public List<Punishment> getAllPunishments() {
+        return punishmentCache.snapshot();
     }
 
-    public boolean isIPBanned(String ip) {
+    // Values are computed only for the slots the rendered message actually contains
+    public Placeholders createPlaceholders(Punishment punishment) {
+        return placeholder -> switch (placeholder) {
+            case PLAYER -> plugin.getPlayerDirectory().getDisplayName(punishment.getTargetId());
+            case REASON -> punishment.getReason();
+            case DURATION -> punishment.getFormattedDuration();
+            case TIME_LEFT -> punishment.getFormattedTimeLeft();
+            case ISSUER -> plugin.getPlayerDirectory().getIssuerName(punishment.getIssuerId());
+            case EXPIRES -> !punishment.isPermanent() && punishment.getExpirationTime() != null ?
+                    formatExpiration(punishment.getExpirationTime()) : "Never";
+            case IP -> punishment.getBannedIP();
+            default -> null;
+        };
+    }
 
-        // Always check database first
-        Punishment ipBan = plugin.getDatabaseManager().loadIPBan(ip);
-        if (ipBan != null) {
-            ipBanCache.put(ip, ipBan);
-            return ipBan.isActive() && !ipBan.isExpired();
+    // Runs on the expiry thread with every punishment whose deadline has passed
+    private void expirePunishments(List<Punishment> expired) {
+        List<UUID> unmuted = new ArrayList<>();
+
+        for (Punishment punishment : expired) {
+            if (!punishment.isActive()) continue;
+
+            // Each deactivation is queued; the writer coalesces them into one batch
+            deactivate(punishment, PunishmentDelta.Kind.EXPIRE);
+            expiredCount.increment();
+
+            if (punishment.getType() == PunishmentType.MUTE || punishment.getType() == PunishmentType.TEMP_MUTE) {
+                unmuted.add(punishment.getTargetId());
+            }
         }
 
-        // Check cache if not in database
-        Punishment cachedBan = ipBanCache.get(ip);
-        if (cachedBan != null) {
-            return cachedBan.isActive() && !cachedBan.isExpired();
+        if (unmuted.isEmpty() || !plugin.getConfig().getBoolean("expiry.notify-players", true)) return;
+
+        plugin.getServer().getScheduler().runTask(plugin, () -> {
+            for (UUID targetId : unmuted) {
+                Player player = plugin.getServer().getPlayer(targetId);
+                if (player != null && player.isOnline()) {
+                    player.sendMessage(plugin.getConfigManager().getMessage("mute-expired"));
+                }
+            }
+        });
+    }
+
+    private void indexIpBan(Punishment punishment) {
+        IpRange range = IpRange.parse(punishment.getBannedIP());
+        if (range != null) {
+            ipBans.put(range, punishment);
         }
-        return false;
+    }
+
+    // Throws DatabaseUnavailableException when the address could not be checked. Taking that as "not banned"
+    // would let /ipban write a second active row that /unban then leaves behind.
+    public boolean isIPBanned(String ip) {
+        return getIPBan(ip) != null;
     }
 
     public Punishment getIPBan(String ip) {
+        IpRange address = IpRange.parse(ip);
+        if (address == null || !address.isSingleAddress()) return null;
+
+        try {
+            return getIPBan(InetAddress.getByAddress(address.getNetwork()));
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
 
-        // Force database check
-        Punishment ipBan = plugin.getDatabaseManager().loadIPBan(ip);
+    // Most specific active exact or range ban covering the address. Throws DatabaseUnavailableException when
+    // memory has no ban and the database lookup could not be made, so a login can tell "unknown" from "none".
+    public Punishment getIPBan(InetAddress address) {
+        Punishment ipBan = ipBans.match(address, PunishmentManager::isEnforced);
         if (ipBan != null) {
-            ipBanCache.put(ip, ipBan);
+            ipBanCacheHits.increment();
             return ipBan;
         }
 
+        // Exact bans issued elsewhere may not be indexed here yet, unless the bus delivers them
+        if (ready && plugin.getSyncService().isEnabled()) return null;
+        ipBanDatabaseLookups.increment();
+        ipBan = plugin.getDatabaseManager().loadIPBan(IpRange.of(address).toString());
+        if (ipBan != null && ipBan.isActive() && !ipBan.isExpired()) {
+            ipBan = cacheLoaded(ipBan);
+            indexIpBan(ipBan);
+            return ipBan;
+        }
+        return null;
+    }
+
+    // The ban registered for exactly this address or range, ignoring wider ranges that cover it
+    public Punishment getRangeBan(IpRange range) {
+        for (Punishment ipBan : ipBans.get(range)) {
+            if (isEnforced(ipBan)) return ipBan;
+        }
         return null;
     }
 
+    private static boolean isEnforced(Punishment punishment) {
+        return punishment.isActive() && !punishment.isExpired();
+    }
+
+    // Throws DatabaseUnavailableException when the ban is not in memory and the database cannot be asked
     public void removeIPBan(String ip) {
-        Punishment ipBan = getIPBan(ip);
-        if (ipBan != null && ipBan.isActive()) {
-            ipBan.deactivate();
-            plugin.getDatabaseManager().updatePunishment(ipBan);
-            ipBanCache.remove(ip);
+        IpRange range = IpRange.parse(ip);
+        if (range == null) return;
+
+        // Every ban held for the range is lifted, in case more than one server banned it
+        List<Punishment> held = ipBans.get(range);
+        if (held.isEmpty()) {
+            Punishment loaded = plugin.getDatabaseManager().loadIPBan(range.toString());
+            if (loaded == null) return;
+            held = List.of(cacheLoaded(loaded));
+        }
+
+        for (Punishment ipBan : held) {
+            if (ipBan.isActive()) {
+                deactivate(ipBan, PunishmentDelta.Kind.UNPUNISH);
+            }
+            ipBans.remove(range, ipBan);
         }
     }
 
@@ -0,0 +1,31 @@
+package com.brekfst.simplepunishments.punishments;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
+
+// Per-player punishment cache behind PunishmentManager; lists handed out are immutable snapshots
+public interface PunishmentStore {
+
+    List<Punishment> get(UUID targetId);
+
+    void add(Punishment punishment);
+
+    // Returns the stored copy of the same row, storing the given one if there is none
+    Punishment addIfAbsent(Punishment punishment);
+
+    // Atomically replaces a player's list with the function's result
+    List<Punishment> update(UUID targetId, UnaryOperator<List<Punishment>> function);
+
+    void addAll(Collection<Punishment> punishments);
+
+    // Records a deactivation that happened on a copy handed out earlier
+    void markInactive(Punishment punishment);
+
+    List<Punishment> snapshot();
+
+    void clear();
+
+    int playerCount();
+}
@@ -0,0 +1,154 @@
+package com.brekfst.simplepunishments.punishments;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.UnaryOperator;
+
+public class ShardedPunishmentStore implements PunishmentStore {
+    private final Shard[] shards;
+    private final int mask;
+
+    public ShardedPunishmentStore(int shardCount) {
+        int size = Integer.highestOneBit(Math.max(1, shardCount - 1) << 1);
+        this.shards = new Shard[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    // Lock-free: each player's list is immutable and swapped as a whole on every write
+    @Override
+    public List<Punishment> get(UUID targetId) {
+        List<Punishment> punishments = shardFor(targetId).entries.get(targetId);
+        return punishments != null ? punishments : List.of();
+    }
+
+    @Override
+    public void add(Punishment punishment) {
+        update(punishment.getTargetId(), current -> {
+            List<Punishment> updated = new ArrayList<>(current.size() + 1);
+            updated.addAll(current);
+            updated.add(punishment);
+            return updated;
+        });
+    }
+
+    // Returns the stored instance for the same row, adding the given one if there is none
+    @Override
+    public Punishment addIfAbsent(Punishment punishment) {
+        Shard shard = shardFor(punishment.getTargetId());
+        long stamp = shard.lock.writeLock();
+        try {
+            List<Punishment> current = shard.entries.getOrDefault(punishment.getTargetId(), List.of());
+            for (Punishment existing : current) {
+                if (existing.getId().equals(punishment.getId())) {
+                    return existing;
+                }
+            }
+            List<Punishment> updated = new ArrayList<>(current);
+            updated.add(punishment);
+            shard.entries.put(punishment.getTargetId(), List.copyOf(updated));
+            return punishment;
+        } finally {
+            shard.lock.unlockWrite(stamp);
+        }
+    }
+
+    // Atomically replaces a player's list with the function's result; writers on other shards are not blocked
+    @Override
+    public List<Punishment> update(UUID targetId, UnaryOperator<List<Punishment>> function) {
+        Shard shard = shardFor(targetId);
+        long stamp = shard.lock.writeLock();
+        try {
+            List<Punishment> updated = function.apply(shard.entries.getOrDefault(targetId, List.of()));
+            if (updated == null || updated.isEmpty()) {
+                shard.entries.remove(targetId);
+                return List.of();
+            }
+            List<Punishment> stored = List.copyOf(updated);
+            shard.entries.put(targetId, stored);
+            return stored;
+        } finally {
+            shard.lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void addAll(Collection<Punishment> punishments) {
+        Map<UUID, List<Punishment>> grouped = new HashMap<>();
+        for (Punishment punishment : punishments) {
+            grouped.computeIfAbsent(punishment.getTargetId(), k -> new ArrayList<>()).add(punishment);
+        }
+        grouped.forEach((targetId, added) -> update(targetId, current -> {
+            List<Punishment> updated = new ArrayList<>(current.size() + added.size());
+            updated.addAll(current);
+            updated.addAll(added);
+            return updated;
+        }));
+    }
+
+    @Override
+    public void markInactive(Punishment punishment) {
+        // Flips the stored instance too when the caller holds a different copy of the same row
+        for (Punishment stored : get(punishment.getTargetId())) {
+            if (stored.getId().equals(punishment.getId())) {
+                stored.markInactive();
+            }
+        }
+    }
+
+    // Holds every shard's read lock at once, so no write is half-visible in the result
+    @Override
+    public List<Punishment> snapshot() {
+        long[] stamps = new long[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            stamps[i] = shards[i].lock.readLock();
+        }
+        try {
+            List<Punishment> all = new ArrayList<>();
+            for (Shard shard : shards) {
+                for (List<Punishment> punishments : shard.entries.values()) {
+                    all.addAll(punishments);
+                }
+            }
+            return all;
+        } finally {
+            for (int i = shards.length - 1; i >= 0; i--) {
+                shards[i].lock.unlockRead(stamps[i]);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (Shard shard : shards) {
+            long stamp = shard.lock.writeLock();
+            try {
+                shard.entries.clear();
+            } finally {
+                shard.lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    @Override
+    public int playerCount() {
+        int count = 0;
+        for (Shard shard : shards) {
+            count += shard.entries.size();
+        }
+        return count;
+    }
+
+    private Shard shardFor(UUID targetId) {
+        int hash = targetId.hashCode();
+        return shards[(hash ^ (hash >>> 16)) & mask];
+    }
+
+    private static final class Shard {
+        private final StampedLock lock = new StampedLock();
+        private final ConcurrentHashMap<UUID, List<Punishment>> entries = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,28 @@
+package com.brekfst.simplepunishments.punishments;
+
+import java.util.List;
+
+// Outcome of PunishmentManager.punishAll
+public class WaveResult {
+    private final List<Punishment> punished;
+    private final int alreadyPunished;
+    private final boolean cancelled;
+
+    public WaveResult(List<Punishment> punished, int alreadyPunished, boolean cancelled) {
+        this.punished = List.copyOf(punished);
+        this.alreadyPunished = alreadyPunished;
+        this.cancelled = cancelled;
+    }
+
+    public List<Punishment> getPunished() {
+        return punished;
+    }
+
+    public int getAlreadyPunished() {
+        return alreadyPunished;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
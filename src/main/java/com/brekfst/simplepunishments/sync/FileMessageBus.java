@@ -0,0 +1,189 @@
+package com.brekfst.simplepunishments.sync;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Reference transport: every node appends length-prefixed frames to its own file in a shared directory
+// and tails the files of the others. Works for servers on one host or on a shared mount, and needs no
+// broker to try the bus locally. Live nodes touch their file regularly, so one left behind by a crashed
+// node can be told apart by its age and removed.
+public class FileMessageBus implements MessageBus {
+    private static final String SUFFIX = ".bus";
+
+    private final File directory;
+    private final String nodeName;
+    private final long pollInterval;
+    private final long expireMillis;
+    private final Logger logger;
+    private final LinkedBlockingQueue<byte[]> outbox = new LinkedBlockingQueue<>();
+    private final Map<String, Long> offsets = new HashMap<>();
+    private Consumer<byte[]> receiver;
+    private DataOutputStream out;
+    private Thread thread;
+    private volatile boolean running;
+    private long lastTouch;
+
+    public FileMessageBus(File directory, String nodeName, long pollInterval, long expireMillis, Logger logger) {
+        this.directory = directory;
+        this.nodeName = nodeName;
+        this.pollInterval = pollInterval;
+        this.expireMillis = Math.max(pollInterval * 20, expireMillis);
+        this.logger = logger;
+    }
+
+    @Override
+    public void start(Consumer<byte[]> receiver) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create bus directory " + directory);
+        }
+        this.receiver = receiver;
+        this.out = openOwnFile();
+
+        // History already in peers' files is not replayed: the active set load that follows start() reads
+        // those changes from the database
+        for (File file : peerFiles()) {
+            offsets.put(file.getName(), file.length());
+        }
+
+        running = true;
+        thread = new Thread(this::run, "SimplePunishments-Bus");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void publish(byte[] message) {
+        if (running) {
+            outbox.offer(message);
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            if (out != null) out.close();
+        } catch (IOException e) {
+            logger.warning("Failed to close bus file: " + e.getMessage());
+        }
+        if (!ownFile().delete()) {
+            logger.fine("Bus file " + ownFile() + " was not removed");
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                writeOutbox(outbox.poll(pollInterval, TimeUnit.MILLISECONDS));
+                readPeers();
+                touch();
+            } catch (InterruptedException e) {
+                break;
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "Message bus poll failed", e);
+            }
+        }
+        // Deltas published during shutdown still go out
+        try {
+            writeOutbox(null);
+        } catch (IOException e) {
+            logger.warning("Failed to write final bus messages: " + e.getMessage());
+        }
+    }
+
+    private void writeOutbox(byte[] first) throws IOException {
+        byte[] message = first != null ? first : outbox.poll();
+        if (message == null) return;
+
+        while (message != null) {
+            out.writeInt(message.length);
+            out.write(message);
+            message = outbox.poll();
+        }
+        out.flush();
+    }
+
+    private void readPeers() throws IOException {
+        List<File> files = peerFiles();
+        Set<String> present = new HashSet<>();
+        for (File file : files) {
+            present.add(file.getName());
+            // A file that appeared after start belongs to a node that came up later; read it from the top
+            long offset = offsets.getOrDefault(file.getName(), 0L);
+            if (file.length() <= offset) continue;
+
+            try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+                in.seek(offset);
+                long length = in.length();
+                while (length - offset >= 4) {
+                    int size = in.readInt();
+                    // The writer may be mid-frame; pick the rest up on the next poll
+                    if (length - offset - 4 < size) break;
+
+                    byte[] message = new byte[size];
+                    in.readFully(message);
+                    offset += 4 + size;
+                    deliver(message);
+                }
+            }
+            offsets.put(file.getName(), offset);
+
+            // Untouched for this long, its node is gone without having removed it; everything in it is read
+            if (offset >= file.length() && System.currentTimeMillis() - file.lastModified() > expireMillis) {
+                if (file.delete()) {
+                    logger.info("Removed bus file " + file.getName() + " left by a stopped server");
+                    present.remove(file.getName());
+                }
+            }
+        }
+        // Nodes that shut down cleanly removed their file
+        offsets.keySet().retainAll(present);
+    }
+
+    // Keeps the own file young enough that peers never expire it; recreated if a peer removed it anyway
+    private void touch() throws IOException {
+        long now = System.currentTimeMillis();
+        if (now - lastTouch < expireMillis / 4) return;
+        lastTouch = now;
+
+        if (!ownFile().exists()) {
+            out.close();
+            out = openOwnFile();
+        }
+        ownFile().setLastModified(now);
+    }
+
+    private DataOutputStream openOwnFile() throws FileNotFoundException {
+        return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(ownFile(), true)));
+    }
+
+    private void deliver(byte[] message) {
+        try {
+            receiver.accept(message);
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Failed to apply bus message", e);
+        }
+    }
+
+    private List<File> peerFiles() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX) && !name.equals(nodeName + SUFFIX));
+        return files != null ? Arrays.asList(files) : Collections.emptyList();
+    }
+
+    private File ownFile() {
+        return new File(directory, nodeName + SUFFIX);
+    }
+}
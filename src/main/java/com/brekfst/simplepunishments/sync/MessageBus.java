@@ -0,0 +1,17 @@
+package com.brekfst.simplepunishments.sync;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+// Transport between servers sharing one database. Another plugin can supply its own (Redis, a proxy
+// channel, ...) by registering an implementation with Bukkit's ServicesManager before this plugin enables.
+public interface MessageBus {
+
+    // Messages may be delivered on any thread; a transport need not filter out the node's own messages
+    void start(Consumer<byte[]> receiver) throws IOException;
+
+    // Must not block on I/O, it is called from the main thread
+    void publish(byte[] message);
+
+    void close();
+}
@@ -0,0 +1,141 @@
+package com.brekfst.simplepunishments.sync;
+
+import com.brekfst.simplepunishments.SimplePunishments;
+import com.brekfst.simplepunishments.punishments.Punishment;
+import com.brekfst.simplepunishments.punishments.PunishmentCodec;
+import com.brekfst.simplepunishments.punishments.PunishmentType;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.UUID;
+
+// One change to the active punishment set. Lifting a punishment only needs the row's keys, so those
+// deltas stay around 60 bytes; a new punishment carries the full row.
+public final class PunishmentDelta {
+    private static final int VERSION = 2;
+
+    private static final int HAS_ISSUER = 1;
+    private static final int HAS_DURATION = 1 << 1;
+    private static final int HAS_REASON = 1 << 2;
+    private static final int HAS_IP = 1 << 3;
+
+    public enum Kind { PUNISH, UNPUNISH, EXPIRE }
+
+    private final Kind kind;
+    private final UUID origin;
+    private final UUID id;
+    private final UUID targetId;
+    private final PunishmentType type;
+    private final String reason;
+    private final UUID issuerId;
+    private final Instant createdAt;
+    private final Long duration;
+    private final String ip;
+
+    private PunishmentDelta(Kind kind, UUID origin, UUID id, UUID targetId, PunishmentType type, String reason,
+                            UUID issuerId, Instant createdAt, Long duration, String ip) {
+        this.kind = kind;
+        this.origin = origin;
+        this.id = id;
+        this.targetId = targetId;
+        this.type = type;
+        this.reason = reason;
+        this.issuerId = issuerId;
+        this.createdAt = createdAt;
+        this.duration = duration;
+        this.ip = ip;
+    }
+
+    public static PunishmentDelta of(Kind kind, UUID origin, Punishment punishment) {
+        if (kind != Kind.PUNISH) {
+            return new PunishmentDelta(kind, origin, punishment.getId(), punishment.getTargetId(), punishment.getType(),
+                    null, null, null, null, punishment.getBannedIP());
+        }
+        return new PunishmentDelta(kind, origin, punishment.getId(), punishment.getTargetId(), punishment.getType(),
+                punishment.getReason(), punishment.getIssuerId(), punishment.getCreatedAt(), punishment.getDuration(),
+                punishment.getBannedIP());
+    }
+
+    public byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(kind == Kind.PUNISH ? 128 : 64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeByte(kind.ordinal());
+            writeUuid(out, origin);
+            writeUuid(out, id);
+            writeUuid(out, targetId);
+            out.writeByte(type.ordinal());
+
+            int flags = (issuerId != null ? HAS_ISSUER : 0)
+                    | (duration != null ? HAS_DURATION : 0)
+                    | (reason != null ? HAS_REASON : 0)
+                    | (ip != null ? HAS_IP : 0);
+            out.writeByte(flags);
+            // IP bans are indexed by address, so even a lift carries it
+            if (ip != null) PunishmentCodec.writeString(out, ip);
+            if (kind != Kind.PUNISH) {
+                return bytes.toByteArray();
+            }
+
+            out.writeLong(createdAt.toEpochMilli());
+            if (issuerId != null) writeUuid(out, issuerId);
+            if (duration != null) out.writeLong(duration);
+            if (reason != null) PunishmentCodec.writeString(out, reason);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static PunishmentDelta decode(byte[] message) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(message);
+        int version = in.get() & 0xFF;
+        if (version != VERSION) {
+            throw new IOException("Unsupported delta version " + version);
+        }
+
+        try {
+            Kind kind = Kind.values()[in.get() & 0xFF];
+            UUID origin = readUuid(in);
+            UUID id = readUuid(in);
+            UUID targetId = readUuid(in);
+            PunishmentType type = PunishmentType.values()[in.get() & 0xFF];
+            int flags = in.get() & 0xFF;
+            String ip = (flags & HAS_IP) != 0 ? PunishmentCodec.readString(in) : null;
+            if (kind != Kind.PUNISH) {
+                return new PunishmentDelta(kind, origin, id, targetId, type, null, null, null, null, ip);
+            }
+
+            Instant createdAt = Instant.ofEpochMilli(in.getLong());
+            UUID issuerId = (flags & HAS_ISSUER) != 0 ? readUuid(in) : null;
+            Long duration = (flags & HAS_DURATION) != 0 ? in.getLong() : null;
+            String reason = (flags & HAS_REASON) != 0 ? PunishmentCodec.readString(in) : null;
+            return new PunishmentDelta(kind, origin, id, targetId, type, reason, issuerId, createdAt, duration, ip);
+        } catch (RuntimeException e) {
+            // A truncated message or an ordinal this version does not know
+            throw new IOException("Corrupt delta: " + e, e);
+        }
+    }
+
+    // Lift deltas carry only the row's keys, which is all the in-memory indexes need to drop it
+    public Punishment toPunishment(SimplePunishments plugin) {
+        return new Punishment(plugin, id, targetId, type, reason, issuerId, createdAt, duration, ip, true);
+    }
+
+    public Kind getKind() { return kind; }
+    public UUID getOrigin() { return origin; }
+    public UUID getId() { return id; }
+    public UUID getTargetId() { return targetId; }
+    public PunishmentType getType() { return type; }
+    public String getIp() { return ip; }
+
+    private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(ByteBuffer in) {
+        return new UUID(in.getLong(), in.getLong());
+    }
+}
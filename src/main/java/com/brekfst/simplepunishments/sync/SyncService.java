@@ -0,0 +1,107 @@
+package com.brekfst.simplepunishments.sync;
+
+import com.brekfst.simplepunishments.SimplePunishments;
+import com.brekfst.simplepunishments.punishments.Punishment;
+import org.bukkit.plugin.RegisteredServiceProvider;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+// Publishes local punishment changes and hands remote ones to the PunishmentManager
+public class SyncService {
+    private final SimplePunishments plugin;
+    private final UUID nodeId = UUID.randomUUID();
+    private MessageBus bus;
+    private Consumer<PunishmentDelta> handler;
+    // Deltas received while the initial load runs; applying them earlier would be wiped by the load
+    private List<PunishmentDelta> pending = new ArrayList<>();
+
+    public SyncService(SimplePunishments plugin) {
+        this.plugin = plugin;
+    }
+
+    // Started before punishments are loaded so nothing published during the load is missed
+    public void start() {
+        if (!plugin.getConfig().getBoolean("sync.enabled", false)) return;
+
+        MessageBus selected = selectBus();
+        try {
+            selected.start(this::receive);
+            bus = selected;
+            plugin.getLogger().info("Punishment sync enabled using " + selected.getClass().getSimpleName());
+        } catch (IOException e) {
+            // Without the bus this node falls back to reading the database on every login
+            plugin.getLogger().severe("Failed to start punishment sync: " + e.getMessage());
+        }
+    }
+
+    private MessageBus selectBus() {
+        RegisteredServiceProvider<MessageBus> registration =
+                plugin.getServer().getServicesManager().getRegistration(MessageBus.class);
+        if (registration != null) {
+            return registration.getProvider();
+        }
+
+        String path = plugin.getConfig().getString("sync.file.directory", "bus");
+        File directory = new File(path);
+        if (!directory.isAbsolute()) {
+            directory = new File(plugin.getDataFolder(), path);
+        }
+        return new FileMessageBus(directory, nodeId.toString(),
+                plugin.getConfig().getLong("sync.file.poll-interval", 250),
+                plugin.getConfig().getLong("sync.file.expire-after", 600) * 1000, plugin.getLogger());
+    }
+
+    public void attach(Consumer<PunishmentDelta> handler) {
+        List<PunishmentDelta> buffered;
+        synchronized (this) {
+            this.handler = handler;
+            buffered = pending;
+            pending = null;
+        }
+        buffered.forEach(handler);
+    }
+
+    // When true, memory is kept current by the bus and per-login database reads can be skipped
+    public boolean isEnabled() {
+        return bus != null;
+    }
+
+    public void publish(PunishmentDelta.Kind kind, Punishment punishment) {
+        if (bus != null) {
+            bus.publish(PunishmentDelta.of(kind, nodeId, punishment).encode());
+        }
+    }
+
+    private void receive(byte[] message) {
+        PunishmentDelta delta;
+        try {
+            delta = PunishmentDelta.decode(message);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Ignoring malformed sync message: " + e.getMessage());
+            return;
+        }
+        if (delta.getOrigin().equals(nodeId)) return;
+
+        Consumer<PunishmentDelta> target;
+        synchronized (this) {
+            if (handler == null) {
+                pending.add(delta);
+                return;
+            }
+            target = handler;
+        }
+        target.accept(delta);
+    }
+
+    public void shutdown() {
+        if (bus != null) {
+            bus.close();
+            bus = null;
+        }
+    }
+}